@@ -4,15 +4,34 @@ import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.Test;
 import xyz.wagyourtail.jsmacros.core.Core;
 import xyz.wagyourtail.jsmacros.core.EventLockWatchdog;
+import xyz.wagyourtail.jsmacros.core.MethodWrapper;
+import xyz.wagyourtail.jsmacros.core.config.ScriptTrigger;
+import xyz.wagyourtail.jsmacros.core.event.BaseEvent;
+import xyz.wagyourtail.jsmacros.core.event.EventFilterer;
+import xyz.wagyourtail.jsmacros.core.event.EventMeta;
 import xyz.wagyourtail.jsmacros.core.event.IEventListener;
 import xyz.wagyourtail.jsmacros.core.event.impl.EventCustom;
+import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
 import xyz.wagyourtail.jsmacros.core.language.EventContainer;
+import xyz.wagyourtail.jsmacros.core.language.ResolvedTrigger;
+import xyz.wagyourtail.jsmacros.core.threads.JsMacrosThreadPool;
+import xyz.wagyourtail.jsmacros.graal.GraalConfig;
+import xyz.wagyourtail.jsmacros.graal.language.impl.GraalLanguageDefinition;
+import xyz.wagyourtail.jsmacros.graal.language.impl.GraalSourceCache;
+import xyz.wagyourtail.jsmacros.graal.language.impl.SchedulerStats;
+import xyz.wagyourtail.jsmacros.graal.library.impl.FWrapper;
 import xyz.wagyourtail.jsmacros.stubs.CoreInstanceCreator;
 import xyz.wagyourtail.jsmacros.stubs.EventRegistryStub;
 import xyz.wagyourtail.jsmacros.stubs.ProfileStub;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class JsTest {
 
@@ -150,4 +169,311 @@ public class JsTest {
         assertTrue(custom.getDouble("time") < 7000);
     }
 
+    private double runTimed(Core<?, ?> core, ScriptTrigger trigger) throws InterruptedException {
+        EventCustom custom = new EventCustom("test");
+        long start = System.nanoTime();
+        EventContainer<?> ev = core.exec(trigger, custom);
+        EventLockWatchdog.startWatchdog(ev, IEventListener.NULL, 10000);
+        ev.awaitLock(() -> {
+        });
+        return (custom.getDouble("first") - start) / 1_000_000;
+    }
+
+    @Test
+    public void testSourceCache() throws InterruptedException, IOException {
+        Core<ProfileStub, EventRegistryStub> core = CoreInstanceCreator.createCore();
+        File file = new File(core.config.macroFolder, "sourceCacheTest.js");
+        file.getParentFile().mkdirs();
+        StringBuilder script = new StringBuilder("event.putDouble(\"first\", Java.type(\"java.lang.System\").nanoTime());\n");
+        for (int i = 0; i < 2000; i++) {
+            script.append("function f").append(i).append("(a) { return a * ").append(i).append(" + 1; }\n");
+        }
+        Files.write(file.toPath(), script.toString().getBytes(StandardCharsets.UTF_8));
+        ScriptTrigger trigger = new ScriptTrigger(ScriptTrigger.TriggerType.EVENT, "test", file, true, false);
+
+        GraalSourceCache cache = GraalLanguageDefinition.sourceCache;
+        cache.invalidate(file);
+        cache.resetMetrics();
+
+        double cold = runTimed(core, trigger);
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getHits());
+
+        double warm = 0;
+        for (int i = 0; i < 10; i++) {
+            warm += runTimed(core, trigger);
+        }
+        assertEquals(1, cache.getMisses());
+        assertEquals(10, cache.getHits());
+        System.out.printf("Trigger to first statement, 2000 lines: cold %.2fms, cached %.2fms%n", cold, warm / 10);
+
+        // touching the file without changing it keeps the cached source.
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        runTimed(core, trigger);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getRevalidations());
+
+        Files.write(file.toPath(), (script + "f0(1);\n").getBytes(StandardCharsets.UTF_8));
+        runTimed(core, trigger);
+        assertEquals(2, cache.getMisses());
+        file.delete();
+    }
+
+    @Test
+    public void testTriggerCache() throws IOException {
+        Core<ProfileStub, EventRegistryStub> core = CoreInstanceCreator.createCore();
+        File file = new File(core.config.macroFolder, "triggerCacheTest.js");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), "event.putString(\"test\", \"ran\");\n".getBytes(StandardCharsets.UTF_8));
+        ScriptTrigger trigger = new ScriptTrigger(ScriptTrigger.TriggerType.EVENT, "test", file, true, false);
+
+        ResolvedTrigger first = core.triggerCache.resolve(trigger);
+        assertSame(first, core.triggerCache.resolve(trigger));
+        trigger.joined = true;
+        ResolvedTrigger edited = core.triggerCache.resolve(trigger);
+        assertNotSame(first, edited);
+        assertTrue(edited.trigger.joined);
+
+        int runs = 100_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            File f = new File(core.config.macroFolder, trigger.scriptFile);
+            core.extensions.getExtensionForFile(f).getLanguage(core);
+        }
+        long uncached = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            core.triggerCache.resolve(trigger);
+        }
+        long cached = System.nanoTime() - start;
+        System.out.printf("Trigger resolution: uncached %dns, cached %dns%n", uncached / runs, cached / runs);
+        file.delete();
+    }
+
+    @Language("js")
+    private final String TEST_SCRIPT_FILTER = """
+            const filter = JavaWrapper.methodToJava((i) => i % 3 == 0);
+            const comparator = JavaWrapper.methodToJava((a, b) => a - b);
+            event.putObject("filter", filter);
+            event.putObject("comparator", comparator);
+            const start = Java.type("java.lang.System").nanoTime();
+            let count = 0;
+            for (let i = 0; i < 100000; i++) {
+                if (filter.test(i)) count++;
+            }
+            event.putDouble("bound", Java.type("java.lang.System").nanoTime() - start);
+            event.putInt("count", count);
+            """;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMethodWrapperFastPath() throws InterruptedException {
+        Core<ProfileStub, EventRegistryStub> core = CoreInstanceCreator.createCore();
+        EventCustom custom = new EventCustom("test");
+        EventContainer<?> ev = core.exec("js",
+                TEST_SCRIPT_FILTER,
+                null,
+                custom,
+                null,
+                null
+        );
+        EventLockWatchdog.startWatchdog(ev, IEventListener.NULL, 10000);
+        ev.awaitLock(() -> {
+        });
+        assertEquals(33334, custom.getInt("count"));
+
+        // called from a thread that doesn't own the context, so every call goes through the task queue.
+        MethodWrapper<Integer, Object, Boolean, ?> filter = (MethodWrapper<Integer, Object, Boolean, ?>) custom.getObject("filter");
+        MethodWrapper<Integer, Integer, Object, ?> comparator = (MethodWrapper<Integer, Integer, Object, ?>) custom.getObject("comparator");
+        int runs = 100_000;
+        int count = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            if (filter.test(i)) {
+                count++;
+            }
+        }
+        long queued = System.nanoTime() - start;
+        assertEquals(33334, count);
+        assertEquals(-1, comparator.compare(1, 2));
+        assertEquals(0, comparator.compare(5, 5));
+        assertEquals(3, comparator.compare(7, 4));
+        System.out.printf("MethodWrapper.test: bound thread %dns, queued %dns%n", (long) (custom.getDouble("bound") / runs), queued / runs);
+    }
+
+
+    @Language("js")
+    private final String TEST_SCRIPT_SLICE = """
+            const order = [];
+            const tick = JavaWrapper.methodToJava(() => 0);
+            function done() {
+                if (order.length == 2) {
+                    event.putString("test", JSON.stringify(order));
+                    event.putObject("stats", JavaWrapper.getSchedulerStats());
+                }
+            }
+            JavaWrapper.methodToJavaAsync(() => {
+                const end = Time.time() + 300;
+                while (Time.time() < end) {
+                    tick.get();
+                }
+                order.push("long");
+                done();
+            }).run();
+            JavaWrapper.methodToJavaAsync(() => {
+                order.push("short");
+                done();
+            }).run();
+            while (order.length < 2) {
+                JavaWrapper.deferCurrentTask();
+            }
+            """;
+
+    @Test
+    public void testTimeSlice() throws InterruptedException {
+        Core<ProfileStub, EventRegistryStub> core = CoreInstanceCreator.createCore();
+        GraalConfig conf = core.config.getOptions(GraalConfig.class);
+        conf.timeSliceMillis = 20;
+        try {
+            EventCustom custom = new EventCustom("test");
+            EventContainer<?> ev = core.exec("js",
+                    TEST_SCRIPT_SLICE,
+                    null,
+                    custom,
+                    null,
+                    null
+            );
+            EventLockWatchdog.startWatchdog(ev, IEventListener.NULL, 10000);
+            ev.awaitLock(() -> {
+            });
+            // the short callback gets the context while the long one is still looping.
+            assertEquals("[\"short\",\"long\"]", custom.getString("test"));
+            SchedulerStats stats = (SchedulerStats) custom.getObject("stats");
+            assertTrue(stats.getSliceYields() > 0);
+            System.out.println(stats);
+        } finally {
+            conf.timeSliceMillis = 0;
+        }
+    }
+
+    @Test
+    public void testPoolThreadReuseAndInterruptIsolation() throws InterruptedException {
+        CoreInstanceCreator.createCore();
+        JsMacrosThreadPool pool = new JsMacrosThreadPool(1, 1, false);
+        BaseScriptContext<Object> leaked = new BaseScriptContext<>(null, null) {
+            @Override
+            public boolean isMultiThreaded() {
+                return true;
+            }
+        };
+
+        // the first task leaves its thread bound to a context and interrupted.
+        Thread[] threads = new Thread[2];
+        CountDownLatch first = new CountDownLatch(1);
+        pool.runTask(() -> {
+            threads[0] = Thread.currentThread();
+            leaked.bindThread(Thread.currentThread());
+            Thread.currentThread().interrupt();
+            first.countDown();
+        });
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getIdleThreads() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertFalse(leaked.isBoundThread(threads[0]));
+
+        // closing the old context while the same thread runs another task must not interrupt that task.
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        boolean[] interrupted = new boolean[2];
+        CountDownLatch second = new CountDownLatch(1);
+        pool.runTask(() -> {
+            threads[1] = Thread.currentThread();
+            interrupted[0] = Thread.currentThread().isInterrupted();
+            started.countDown();
+            try {
+                interrupted[1] = !closed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted[1] = true;
+            }
+            second.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        leaked.closeContext();
+        closed.countDown();
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+
+        assertSame(threads[0], threads[1]);
+        assertFalse(interrupted[0], "interrupt from the previous task leaked into the next one");
+        assertFalse(interrupted[1], "closing the previous task's context interrupted the next one");
+        assertEquals(1, pool.getCreatedThreads());
+    }
+
+    @Test
+    public void testIndexedFiltererKeyChange() {
+        Core<ProfileStub, EventRegistryStub> core = CoreInstanceCreator.createCore();
+        // the key is changed without telling the registry, like a script assigning a filterer field.
+        Object[] key = {"a"};
+        EventFilterer.Indexed filterer = new EventFilterer.Indexed() {
+            @Override
+            public boolean canFilter(String event) {
+                return true;
+            }
+
+            @Override
+            public boolean test(BaseEvent event) {
+                return true;
+            }
+
+            @Override
+            public Object getIndexKey() {
+                return key[0];
+            }
+        };
+        IEventListener listener = new IEventListener() {
+            @Override
+            public boolean joined() {
+                return false;
+            }
+
+            @Override
+            public EventContainer<?> trigger(BaseEvent event) {
+                return null;
+            }
+
+            @Override
+            public EventFilterer getFilterer() {
+                return filterer;
+            }
+        };
+        int id = EventMeta.idOf("IndexedKeyTest");
+        core.eventRegistry.addListener("IndexedKeyTest", listener);
+        try {
+            assertArrayEquals(new IEventListener[]{listener}, core.eventRegistry.getListenerSnapshot(id, "a"));
+            assertEquals(0, core.eventRegistry.getListenerSnapshot(id, "b").length);
+
+            key[0] = "b";
+            assertEquals(0, core.eventRegistry.getListenerSnapshot(id, "a").length);
+            assertArrayEquals(new IEventListener[]{listener}, core.eventRegistry.getListenerSnapshot(id, "b"));
+
+            key[0] = null;
+            assertArrayEquals(new IEventListener[]{listener}, core.eventRegistry.getListenerSnapshot(id, "a"));
+        } finally {
+            core.eventRegistry.removeListener("IndexedKeyTest", listener);
+        }
+    }
+
+    @Test
+    public void testLazyLibraryPassedToJava() throws InterruptedException {
+        Core<ProfileStub, EventRegistryStub> core = CoreInstanceCreator.createCore();
+        EventCustom custom = new EventCustom("test");
+        // JavaWrapper isn't constructed yet, but java should still get the library rather than the proxy.
+        EventContainer<?> ev = core.exec("js", "event.putObject(\"wrapper\", JavaWrapper);", null, custom, null, null);
+        EventLockWatchdog.startWatchdog(ev, IEventListener.NULL, 3000);
+        ev.awaitLock(() -> {
+        });
+        assertInstanceOf(FWrapper.class, custom.getObject("wrapper"));
+    }
+
 }
@@ -0,0 +1,72 @@
+package xyz.wagyourtail.jsmacros.core.test;
+
+import org.junit.jupiter.api.Test;
+import xyz.wagyourtail.SwarMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SwarMatcherTest {
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(0x5EED);
+        for (int elementBits = 1; elementBits <= 32; elementBits++) {
+            int elementsPerLong = 64 / elementBits;
+            long mask = (1L << elementBits) - 1;
+            for (int round = 0; round < 50; round++) {
+                int size = random.nextInt(300);
+                int[] values = new int[size];
+                long[] data = new long[(size + elementsPerLong - 1) / elementsPerLong];
+                for (int i = 0; i < size; i++) {
+                    // small values too, so fields are often equal or off by one bit from the targets
+                    values[i] = (int) (random.nextBoolean() ? random.nextInt(4) & mask : random.nextLong() & mask);
+                    data[i / elementsPerLong] |= (values[i] & 0xFFFFFFFFL) << ((i % elementsPerLong) * elementBits);
+                }
+                int[] targets = new int[1 + random.nextInt(Math.max(1, Math.min(4, elementsPerLong / 4)))];
+                for (int i = 0; i < targets.length; i++) {
+                    targets[i] = size > 0 && random.nextBoolean() ? values[random.nextInt(size)] : (int) (random.nextInt(4) & mask);
+                }
+
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    for (int target : targets) {
+                        if (values[i] == target) {
+                            expected.add(i);
+                            break;
+                        }
+                    }
+                }
+                List<Integer> actual = new ArrayList<>();
+                SwarMatcher matcher = new SwarMatcher(data, elementBits, size, targets);
+                matcher.forEach(actual::add);
+                assertEquals(expected, actual, "elementBits " + elementBits + ", size " + size);
+                assertEquals(expected.size(), matcher.count(), "elementBits " + elementBits + ", size " + size);
+            }
+        }
+    }
+
+    @Test
+    public void testPaddingIsIgnored() {
+        // 3 values in a long of 5 bit fields, so 9 fields past the end are zero and must not match zero.
+        long[] data = {1L | (0L << 5) | (2L << 10)};
+        SwarMatcher matcher = new SwarMatcher(data, 5, 3, new int[]{0});
+        List<Integer> actual = new ArrayList<>();
+        matcher.forEach(actual::add);
+        assertEquals(List.of(1), actual);
+        assertEquals(1, matcher.count());
+    }
+
+    @Test
+    public void testIsWorthIt() {
+        assertTrue(SwarMatcher.isWorthIt(4, 4));
+        assertFalse(SwarMatcher.isWorthIt(4, 5));
+        assertFalse(SwarMatcher.isWorthIt(0, 1));
+        assertFalse(SwarMatcher.isWorthIt(32, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SwarMatcher(new long[1], 0, 1, new int[]{0}));
+    }
+
+}
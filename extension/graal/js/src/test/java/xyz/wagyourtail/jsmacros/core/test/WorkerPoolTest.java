@@ -0,0 +1,128 @@
+package xyz.wagyourtail.jsmacros.core.test;
+
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+import xyz.wagyourtail.jsmacros.core.Core;
+import xyz.wagyourtail.jsmacros.core.EventLockWatchdog;
+import xyz.wagyourtail.jsmacros.core.event.IEventListener;
+import xyz.wagyourtail.jsmacros.core.event.impl.EventCustom;
+import xyz.wagyourtail.jsmacros.core.language.EventContainer;
+import xyz.wagyourtail.jsmacros.graal.library.impl.classes.WorkerPool;
+import xyz.wagyourtail.jsmacros.stubs.CoreInstanceCreator;
+import xyz.wagyourtail.jsmacros.stubs.EventRegistryStub;
+import xyz.wagyourtail.jsmacros.stubs.ProfileStub;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkerPoolTest {
+
+    @Language("js")
+    private final String WORKER_MODULE = """
+            function square(x) {
+                return x * x;
+            }
+            function echo(o) {
+                return o;
+            }
+            function mutate(o) {
+                o.n = 2;
+                o.list[0] = 9;
+                return o;
+            }
+            function fail() {
+                throw new Error("boom");
+            }
+            function spin() {
+                while (true) {
+                }
+            }
+            """;
+
+    @Language("js")
+    private final String BAD_MODULE = """
+            throw new Error("bad module");
+            """;
+
+    @Language("js")
+    private final String TEST_SCRIPT = """
+            const pool = JavaWrapper.createWorkerPool(2, event.getString("module"));
+
+            const squares = pool.await(pool.map([1, 2, 3, 4, 5, 6, 7, 8], "square"));
+            const out = [];
+            for (let i = 0; i < squares.size(); i++) {
+                out.push(squares.get(i));
+            }
+            event.putString("map", JSON.stringify(out));
+            event.putInt("submit", pool.await(pool.submit("square", 12)));
+
+            const original = {n: 1, list: [1, 2]};
+            const copy = pool.await(pool.submit("mutate", original));
+            event.putString("copy", JSON.stringify({n: original.n, first: original.list[0], copyN: copy.n, copyFirst: copy.list[0]}));
+
+            try {
+                pool.submit("echo", () => 1);
+                event.putString("function", "accepted");
+            } catch (e) {
+                event.putString("function", String(e));
+            }
+            try {
+                pool.await(pool.submit("fail"));
+                event.putString("fail", "returned");
+            } catch (e) {
+                event.putString("fail", String(e));
+            }
+            try {
+                JavaWrapper.createWorkerPool(1, event.getString("badModulePath"));
+                event.putString("badModule", "loaded");
+            } catch (e) {
+                event.putString("badModule", String(e));
+            }
+
+            // the only worker never returns, so the second call stays queued until the pool is closed.
+            const blocked = JavaWrapper.createWorkerPool(1, event.getString("module"));
+            blocked.submit("spin");
+            event.putObject("pending", blocked.submit("square", 3));
+            event.putObject("blocked", blocked);
+            """;
+
+    @Test
+    public void testWorkerPool() throws InterruptedException, IOException {
+        Core<ProfileStub, EventRegistryStub> core = CoreInstanceCreator.createCore();
+        Path dir = Files.createTempDirectory("jsmacros-workers");
+        Path module = Files.writeString(dir.resolve("worker.js"), WORKER_MODULE);
+        Path badModule = Files.writeString(dir.resolve("bad.js"), BAD_MODULE);
+
+        EventCustom custom = new EventCustom("test");
+        custom.putString("module", module.toAbsolutePath().toString());
+        custom.putString("badModulePath", badModule.toAbsolutePath().toString());
+        EventContainer<?> ev = core.exec("js", TEST_SCRIPT, null, custom, null, null);
+        EventLockWatchdog.startWatchdog(ev, IEventListener.NULL, 30000);
+        ev.awaitLock(() -> {
+        });
+
+        // results come back in the order of the list, even though two workers ran them.
+        assertEquals("[1,4,9,16,25,36,49,64]", custom.getString("map"));
+        assertEquals(144, custom.getInt("submit"));
+        // the worker changed its own copy, not the script's object.
+        assertEquals("{\"n\":1,\"first\":1,\"copyN\":2,\"copyFirst\":9}", custom.getString("copy"));
+        assertTrue(custom.getString("function").contains("functions can't be passed"), custom.getString("function"));
+        assertTrue(custom.getString("fail").contains("boom"), custom.getString("fail"));
+        assertTrue(custom.getString("badModule").contains("Failed to load worker module"), custom.getString("badModule"));
+
+        CompletableFuture<?> pending = (CompletableFuture<?>) custom.getObject("pending");
+        WorkerPool blocked = (WorkerPool) custom.getObject("blocked");
+        if (!ev.getCtx().isContextClosed()) {
+            ev.getCtx().closeContext();
+        }
+        assertThrows(CancellationException.class, () -> pending.get(5, TimeUnit.SECONDS));
+        assertTrue(blocked.isClosed());
+    }
+
+}
@@ -4,6 +4,7 @@ import org.graalvm.polyglot.Context;
 import xyz.wagyourtail.jsmacros.core.Core;
 import xyz.wagyourtail.jsmacros.core.extensions.Extension;
 import xyz.wagyourtail.jsmacros.graal.GraalConfig;
+import xyz.wagyourtail.jsmacros.graal.language.impl.GraalLanguageDefinition;
 
 public class PythonExtension implements Extension {
 
@@ -14,13 +15,12 @@ public class PythonExtension implements Extension {
 
     @Override
     public void init() {
-        Thread t = new Thread(() -> {
-            Context.Builder build = Context.newBuilder("python");
-            Context con = build.build();
+        // on the shared engine, so the warm up carries over to script contexts.
+        Core.getInstance().extensions.scheduleWarmup(getExtensionName(), () -> {
+            Context con = Context.newBuilder("python").engine(GraalLanguageDefinition.engine).build();
             con.eval("python", "print('py pre-loaded.')");
             con.close();
         });
-        t.start();
         try {
             Core.getInstance().config.addOptions("python", GraalConfig.class);
         } catch (Exception e) {
@@ -15,6 +15,15 @@ public class GraalConfig {
     @Option(translationKey = "jsmacros.settings.languages.extragraaloptions", group = {"jsmacros.settings.languages", "jsmacros.settings.languages.graaloptions"}, type = @OptionType("string"))
     public Map<String, String> extraGraalOptions = new HashMap<>();
 
+    @Option(translationKey = "jsmacros.settings.languages.contextpoolsize", group = {"jsmacros.settings.languages", "jsmacros.settings.languages.graaloptions"})
+    public int contextPoolSize = 0;
+
+    @Option(translationKey = "jsmacros.settings.languages.contextpoolidle", group = {"jsmacros.settings.languages", "jsmacros.settings.languages.graaloptions"})
+    public int contextPoolIdleSeconds = 60;
+
+    @Option(translationKey = "jsmacros.settings.languages.timeslice", group = {"jsmacros.settings.languages", "jsmacros.settings.languages.graaloptions"})
+    public int timeSliceMillis = 0;
+
     @Deprecated
     public void fromV1(JsonObject v1) {
         JsonObject obj = v1.getAsJsonObject("extraJsOptions");
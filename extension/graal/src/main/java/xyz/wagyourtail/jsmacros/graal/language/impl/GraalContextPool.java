@@ -0,0 +1,240 @@
+package xyz.wagyourtail.jsmacros.graal.language.impl;
+
+import org.graalvm.polyglot.Context;
+import xyz.wagyourtail.jsmacros.core.Core;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * keeps a few contexts per language, working directory and graal options built ahead of time,
+ * so a trigger doesn't have to wait for a new context and language init before its first line runs.
+ * <p>
+ * contexts are built on a background thread and only ever handed out once, a context that already ran a script
+ * is closed with its script instead of going back into the pool, since there is no safe way to reset guest globals.
+ * pooled contexts that aren't used within the idle time are closed.
+ * the background thread is only started once the pool is first used with a size above {@code 0}.
+ *
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class GraalContextPool {
+    private static final long EVICT_PERIOD_MILLIS = 5000;
+
+    private final ContextFactory factory;
+    private final Map<Key, Pool> pools = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService executor;
+    private volatile int size;
+    private volatile long idleMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public GraalContextPool(ContextFactory factory, int size, long idleMillis) {
+        this.factory = factory;
+        this.size = size;
+        this.idleMillis = idleMillis;
+    }
+
+    private ScheduledExecutorService getExecutor() {
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.executor;
+                if (executor == null) {
+                    ClassLoader loader = GraalContextPool.class.getClassLoader();
+                    executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "Graal Context Pool");
+                        t.setDaemon(true);
+                        t.setContextClassLoader(loader);
+                        return t;
+                    });
+                    executor.scheduleWithFixedDelay(this::evict, EVICT_PERIOD_MILLIS, EVICT_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                    this.executor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * @param key
+     * @return a pre-built context for {@code key}, or {@code null} if there isn't one ready, in which case the caller builds its own.
+     * the pool for {@code key} is topped up in the background either way.
+     */
+    public Context acquire(Key key) {
+        if (size <= 0) {
+            return null;
+        }
+        Pool pool = pools.computeIfAbsent(key, Pool::new);
+        pool.lastUsed = System.currentTimeMillis();
+        Pooled pooled = pool.contexts.pollFirst();
+        refill(pool);
+        if (pooled == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return pooled.context;
+    }
+
+    private void refill(Pool pool) {
+        while (true) {
+            int queued = pool.pending.get();
+            if (pool.contexts.size() + queued >= size) {
+                return;
+            }
+            if (pool.pending.compareAndSet(queued, queued + 1)) {
+                getExecutor().execute(() -> build(pool));
+            }
+        }
+    }
+
+    private void build(Pool pool) {
+        try {
+            Context context = factory.create(pool.key);
+            if (pools.get(pool.key) != pool || pool.contexts.size() >= size) {
+                context.close();
+                return;
+            }
+            pool.contexts.addLast(new Pooled(context));
+        } catch (Throwable t) {
+            Core<?, ?> core = Core.getInstance();
+            if (core != null) {
+                core.profile.logError(new RuntimeException("Failed to pre-build Graal context for " + pool.key.lang, t));
+            }
+        } finally {
+            pool.pending.decrementAndGet();
+        }
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        int max = size;
+        long idle = idleMillis;
+        for (Pool pool : pools.values()) {
+            Pooled pooled;
+            while ((pooled = pool.contexts.peekFirst()) != null && (pool.contexts.size() > max || now - pooled.createdAt > idle)) {
+                if (pool.contexts.remove(pooled)) {
+                    pooled.context.close();
+                    evicted.increment();
+                }
+            }
+            if (pool.contexts.isEmpty() && pool.pending.get() == 0 && now - pool.lastUsed > idle) {
+                pools.remove(pool.key, pool);
+            }
+        }
+    }
+
+    /**
+     * @param size contexts kept ready per key, {@code 0} disables the pool.
+     */
+    public void setSize(int size) {
+        this.size = Math.max(0, size);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setIdleMillis(long idleMillis) {
+        this.idleMillis = idleMillis;
+    }
+
+    public long getIdleMillis() {
+        return idleMillis;
+    }
+
+    /**
+     * close every pooled context.
+     */
+    public void clear() {
+        for (Pool pool : pools.values()) {
+            pools.remove(pool.key, pool);
+            Pooled pooled;
+            while ((pooled = pool.contexts.pollFirst()) != null) {
+                pooled.context.close();
+            }
+        }
+    }
+
+    /**
+     * @return number of contexts currently waiting to be handed out.
+     */
+    public int getAvailable() {
+        int count = 0;
+        for (Pool pool : pools.values()) {
+            count += pool.contexts.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return times a pre-built context was handed out.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return times a context had to be built on the script thread.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return contexts closed without ever being used.
+     */
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GraalContextPool:{\"size\": %d, \"available\": %d, \"hits\": %d, \"misses\": %d, \"evicted\": %d}", size, getAvailable(), getHits(), getMisses(), getEvicted());
+    }
+
+    /**
+     * contexts are only interchangeable if they were built for the same language, working directory and options.
+     */
+    public record Key(String lang, File dir, Map<String, String> options) {
+    }
+
+    @FunctionalInterface
+    public interface ContextFactory {
+        Context create(Key key) throws Exception;
+
+    }
+
+    private static final class Pool {
+        final Key key;
+        final ConcurrentLinkedDeque<Pooled> contexts = new ConcurrentLinkedDeque<>();
+        final AtomicInteger pending = new AtomicInteger();
+        volatile long lastUsed = System.currentTimeMillis();
+
+        Pool(Key key) {
+            this.key = key;
+        }
+
+    }
+
+    private static final class Pooled {
+        final Context context;
+        final long createdAt = System.currentTimeMillis();
+
+        Pooled(Context context) {
+            this.context = context;
+        }
+
+    }
+
+}
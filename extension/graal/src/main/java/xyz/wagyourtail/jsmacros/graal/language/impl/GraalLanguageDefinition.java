@@ -3,6 +3,7 @@ package xyz.wagyourtail.jsmacros.graal.language.impl;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Context.Builder;
 import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.HostAccess;
 import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 import xyz.wagyourtail.jsmacros.core.Core;
@@ -16,23 +17,92 @@ import xyz.wagyourtail.jsmacros.graal.GraalConfig;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class GraalLanguageDefinition extends BaseLanguage<Context, GraalScriptContext> {
     public static final Engine engine = Engine.newBuilder().option("engine.WarnInterpreterOnly", "false").build();
     public static final boolean isJsInstalled = engine.getLanguages().containsKey("js");
+    /**
+     * sources of script files run on {@link #engine}, shared between all contexts.
+     *
+     * @since 2.0.1
+     */
+    public static final GraalSourceCache sourceCache = new GraalSourceCache(256);
+    /**
+     * {@link HostAccess#ALL}, except that a {@link LazyLibraryProxy} passed to java as {@link Object} or {@link BaseLibrary}
+     * arrives as its library instead of the proxy.
+     *
+     * @since 2.0.1
+     */
+    public static final HostAccess hostAccess = HostAccess.newBuilder(HostAccess.ALL)
+            .targetTypeMapping(Value.class, Object.class, LazyLibraryProxy::isLazyLibrary, LazyLibraryProxy::resolve)
+            .targetTypeMapping(Value.class, BaseLibrary.class, LazyLibraryProxy::isLazyLibrary, LazyLibraryProxy::resolve)
+            .build();
+
+    /**
+     * @since 2.0.1
+     */
+    public final GraalContextPool contextPool;
 
     public GraalLanguageDefinition(Extension extension, Core<?, ?> runner) {
         super(extension, runner);
+        // sized from GraalConfig on each use, the config may not be registered yet.
+        contextPool = new GraalContextPool(this::prebuildContext, 0, 60_000);
     }
 
     protected Context buildContext(File currentDir, String lang, Map<String, String> extraJsOptions, Map<String, Object> globals, Map<String, BaseLibrary> libs) throws IOException {
+        return buildContext(currentDir, lang, extraJsOptions, globals, libs, Collections.emptyMap());
+    }
+
+    /**
+     * @param lazyLibs bound as {@link LazyLibraryProxy}s, so they're only constructed if the script uses them.
+     * @since 2.0.1
+     */
+    protected Context buildContext(File currentDir, String lang, Map<String, String> extraJsOptions, Map<String, Object> globals, Map<String, BaseLibrary> libs, Map<String, Supplier<BaseLibrary>> lazyLibs) throws IOException {
+        if (currentDir == null) {
+            currentDir = runner.config.macroFolder;
+        }
+
+        final GraalConfig conf = runner.config.getOptions(GraalConfig.class);
+        contextPool.setSize(conf.contextPoolSize);
+        contextPool.setIdleMillis(conf.contextPoolIdleSeconds * 1000L);
+
+        Context con = contextPool.acquire(new GraalContextPool.Key(lang, currentDir, new HashMap<>(extraJsOptions)));
+        if (con == null) {
+            con = newContext(currentDir, lang, extraJsOptions);
+        }
+
+        // Set Bindings
+        final Value binds = con.getBindings(lang);
+
+        if (globals != null) {
+            globals.forEach(binds::putMember);
+        }
+
+        libs.forEach(binds::putMember);
+
+        for (Map.Entry<String, Supplier<BaseLibrary>> lib : lazyLibs.entrySet()) {
+            binds.putMember(lib.getKey(), new LazyLibraryProxy(lang, lib.getKey(), lib.getValue()));
+        }
+
+        return con;
+    }
+
+    /**
+     * build a context with the graal options and commonjs setup applied, but nothing bound yet.
+     *
+     * @since 2.0.1
+     */
+    public static Context newContext(File currentDir, String lang, Map<String, String> extraJsOptions) throws IOException {
 
         Builder build = Context.newBuilder()
                 .engine(engine)
                 .allowAllAccess(true)
+                .allowHostAccess(hostAccess)
                 .allowExperimentalOptions(true);
 
         for (Map.Entry<String, String> e : extraJsOptions.entrySet()) {
@@ -43,9 +113,6 @@ public class GraalLanguageDefinition extends BaseLanguage<Context, GraalScriptCo
             }
         }
 
-        if (currentDir == null) {
-            currentDir = runner.config.macroFolder;
-        }
         build.currentWorkingDirectory(currentDir.toPath().toAbsolutePath());
 
         if (isJsInstalled) {
@@ -53,17 +120,14 @@ public class GraalLanguageDefinition extends BaseLanguage<Context, GraalScriptCo
             build.option("js.commonjs-require-cwd", currentDir.getCanonicalPath());
         }
 
-        final Context con = build.build();
-
-        // Set Bindings
-        final Value binds = con.getBindings(lang);
-
-        if (globals != null) {
-            globals.forEach(binds::putMember);
-        }
-
-        libs.forEach(binds::putMember);
+        return build.build();
+    }
 
+    // runs on the pool thread, initializes the language and binds the libraries that don't depend on the script.
+    private Context prebuildContext(GraalContextPool.Key key) throws IOException {
+        Context con = newContext(key.dir(), key.lang(), key.options());
+        Value binds = con.getBindings(key.lang());
+        retrieveOnceLibs().forEach(binds::putMember);
         return con;
     }
 
@@ -80,7 +144,8 @@ public class GraalLanguageDefinition extends BaseLanguage<Context, GraalScriptCo
             conf.extraGraalOptions = new LinkedHashMap<>();
         }
 
-        Map<String, BaseLibrary> lib = retrieveLibs(ctx.getCtx());
+        Map<String, BaseLibrary> lib = retrieveOnceLibs();
+        Map<String, Supplier<BaseLibrary>> lazyLib = retrieveLazyPerExecLibs(ctx.getCtx());
         String lang = Source.findLanguage(ctx.getCtx().getFile());
         if (!engine.getLanguages().containsKey(lang)) {
             if (isJsInstalled) {
@@ -89,12 +154,12 @@ public class GraalLanguageDefinition extends BaseLanguage<Context, GraalScriptCo
                 lang = engine.getLanguages().keySet().stream().findFirst().orElseThrow(() -> new RuntimeException("No GraalVM languages installed!"));
             }
         }
-        final Context con = buildContext(ctx.getCtx().getContainedFolder(), lang, conf.extraGraalOptions, globals, lib);
+        final Context con = buildContext(ctx.getCtx().getContainedFolder(), lang, conf.extraGraalOptions, globals, lib, lazyLib);
         ctx.getCtx().setContext(con);
         con.enter();
         try {
             assert ctx.getCtx().getFile() != null;
-            con.eval(Source.newBuilder(lang, ctx.getCtx().getFile()).build());
+            con.eval(sourceCache.get(lang, ctx.getCtx().getFile()));
         } finally {
             try {
                 con.leave();
@@ -122,7 +187,8 @@ public class GraalLanguageDefinition extends BaseLanguage<Context, GraalScriptCo
             conf.extraGraalOptions = new LinkedHashMap<>();
         }
 
-        Map<String, BaseLibrary> lib = retrieveLibs(ctx.getCtx());
+        Map<String, BaseLibrary> lib = retrieveOnceLibs();
+        Map<String, Supplier<BaseLibrary>> lazyLib = retrieveLazyPerExecLibs(ctx.getCtx());
         lang = Source.findLanguage(new File(lang.startsWith(".") ? lang : "." + lang));
         if (!engine.getLanguages().containsKey(lang)) {
             if (isJsInstalled) {
@@ -131,7 +197,7 @@ public class GraalLanguageDefinition extends BaseLanguage<Context, GraalScriptCo
                 lang = engine.getLanguages().keySet().stream().findFirst().orElseThrow(() -> new RuntimeException("No GraalVM languages installed!"));
             }
         }
-        final Context con = buildContext(ctx.getCtx().getContainedFolder(), lang, conf.extraGraalOptions, globals, lib);
+        final Context con = buildContext(ctx.getCtx().getContainedFolder(), lang, conf.extraGraalOptions, globals, lib, lazyLib);
         ctx.getCtx().setContext(con);
         con.enter();
         try {
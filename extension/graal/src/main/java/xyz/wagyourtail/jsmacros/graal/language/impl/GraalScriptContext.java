@@ -2,21 +2,48 @@ package xyz.wagyourtail.jsmacros.graal.language.impl;
 
 import org.graalvm.polyglot.Context;
 import xyz.wagyourtail.PrioryFiFoTaskQueue;
+import xyz.wagyourtail.jsmacros.core.Core;
 import xyz.wagyourtail.jsmacros.core.event.BaseEvent;
 import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
+import xyz.wagyourtail.jsmacros.graal.GraalConfig;
+import xyz.wagyourtail.jsmacros.graal.library.impl.classes.WorkerPool;
 
 import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class GraalScriptContext extends BaseScriptContext<Context> {
     public final PrioryFiFoTaskQueue<WrappedThread> tasks = new PrioryFiFoTaskQueue<>(GraalScriptContext::getThreadPriority);
+    /**
+     * closed along with this context.
+     *
+     * @since 2.0.1
+     */
+    public final Set<WorkerPool> workerPools = ConcurrentHashMap.newKeySet();
+    /**
+     * @since 2.0.1
+     */
+    public final SchedulerStats schedulerStats = new SchedulerStats();
+    private final long timeSlice;
+    private volatile long sliceStart = System.nanoTime();
+    // the last queue entry a method wrapper was done with, one thread calling back repeatedly keeps reusing it.
+    private final AtomicReference<WrappedThread> spareQueueEntry = new AtomicReference<>();
 
     public GraalScriptContext(BaseEvent event, File file) {
         super(event, file);
+        Core<?, ?> core = Core.getInstance();
+        GraalConfig conf = core == null ? null : core.config.getOptions(GraalConfig.class);
+        this.timeSlice = conf == null ? 0 : conf.timeSliceMillis * 1_000_000L;
     }
 
     @Override
     public void closeContext() {
         super.closeContext();
+        spareQueueEntry.set(null);
+        for (WorkerPool pool : workerPools) {
+            pool.close();
+        }
         Context ctx = getContext();
         if (ctx != null) {
             ctx.close(true);
@@ -37,6 +64,81 @@ public class GraalScriptContext extends BaseScriptContext<Context> {
         super.setMainThread(t);
         WrappedThread w = new WrappedThread(t, 5);
         tasks.add(w);
+        if (tasks.peek() == w) {
+            acquired(w);
+        }
+    }
+
+    /**
+     * @param t
+     * @param priority
+     * @return a queue entry for {@code t}, the last one given back is reused if it was for the same thread and priority.
+     * @since 2.0.1
+     */
+    public WrappedThread takeQueueEntry(Thread t, int priority) {
+        WrappedThread wt = spareQueueEntry.getAndSet(null);
+        if (wt == null || wt.thread != t || wt.priority != priority || wt.basePriority != priority) {
+            return new WrappedThread(t, priority);
+        }
+        return wt.reset();
+    }
+
+    /**
+     * give back an entry from {@link #takeQueueEntry(Thread, int)} once it's out of the queue.
+     *
+     * @param wt
+     * @since 2.0.1
+     */
+    public void recycleQueueEntry(WrappedThread wt) {
+        if (!isContextClosed()) {
+            spareQueueEntry.set(wt);
+        }
+    }
+
+    /**
+     * called by a task once it's at the front of the queue and about to enter the context.
+     *
+     * @param task
+     * @since 2.0.1
+     */
+    public void acquired(WrappedThread task) {
+        long now = System.nanoTime();
+        schedulerStats.recordWait(task.basePriority, now - task.getQueuedAt());
+        sliceStart = now;
+    }
+
+    /**
+     * @return time slice in nanoseconds, {@code 0} if tasks only switch at explicit yields.
+     * @since 2.0.1
+     */
+    public long getTimeSlice() {
+        return timeSlice;
+    }
+
+    /**
+     * if the current task has held the context for longer than the time slice and other tasks are waiting,
+     * let every waiting task run before continuing. the current task keeps its priority for later yields.
+     * <p>
+     * this must be called from the thread that holds the context, with the context entered.
+     *
+     * @return if the task yielded.
+     * @throws InterruptedException
+     * @since 2.0.1
+     */
+    public boolean yieldIfSliceExpired() throws InterruptedException {
+        if (timeSlice <= 0 || System.nanoTime() - sliceStart < timeSlice || tasks.size() < 2) {
+            return false;
+        }
+        WrappedThread current = tasks.peek();
+        WrappedThread last = tasks.peekLast();
+        if (current == null || current.thread != Thread.currentThread() || last == null || last == current) {
+            return false;
+        }
+        schedulerStats.recordSliceYield();
+        // queue behind the lowest priority task that is waiting right now, so no priority is starved.
+        requeue(Math.min(current.basePriority, last.priority), current.basePriority, () -> {
+        });
+        return true;
     }
 
     @Override
@@ -45,11 +147,17 @@ public class GraalScriptContext extends BaseScriptContext<Context> {
     }
 
     public void wrapSleep(int changePriority, SleepRunnable sleep) throws InterruptedException {
+        assert tasks.peek() != null;
+        int priority = tasks.peek().basePriority + changePriority;
+        requeue(priority, priority, sleep);
+    }
+
+    private void requeue(int queuePriority, int basePriority, SleepRunnable sleep) throws InterruptedException {
         getContext().leave();
         try {
             assert tasks.peek() != null;
             // remove self from queue
-            WrappedThread current = tasks.poll();
+            tasks.poll();
             WrappedThread next = tasks.peek();
             if (next != null) {
                 next.notifyReady();
@@ -59,7 +167,7 @@ public class GraalScriptContext extends BaseScriptContext<Context> {
                 sleep.run();
             } finally {
                 // put self at back of the queue
-                WrappedThread wt = new WrappedThread(Thread.currentThread(), current.priority + changePriority);
+                WrappedThread wt = new WrappedThread(Thread.currentThread(), queuePriority, basePriority);
                 tasks.add(wt);
 
                 // wait to be at the front of the queue again
@@ -67,6 +175,7 @@ public class GraalScriptContext extends BaseScriptContext<Context> {
                 if (tasks.peek().thread != Thread.currentThread()) {
                     wt.waitUntilReady();
                 }
+                acquired(wt);
             }
         } finally {
             getContext().enter();
@@ -0,0 +1,159 @@
+package xyz.wagyourtail.jsmacros.graal.language.impl;
+
+import org.graalvm.polyglot.Source;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * keeps the {@link Source} of script files around between runs, so contexts on the shared
+ * {@link GraalLanguageDefinition#engine} get the same source object back and truffle can reuse the code it already parsed.
+ * <p>
+ * entries are keyed by language and canonical path, and are checked against the file's last modified time and length
+ * the same way {@link xyz.wagyourtail.jsmacros.core.service.ServiceManager#tickReloadListener()} does.
+ * if those changed the file is re-read, and only rebuilt if the content hash is different too.
+ *
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class GraalSourceCache {
+    private final int maxSize;
+    private final Map<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+
+    public GraalSourceCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > GraalSourceCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param lang
+     * @param file
+     * @return the source for this file, built from its current content if it isn't cached or has changed.
+     * @throws IOException
+     */
+    public Source get(String lang, File file) throws IOException {
+        File canonical = file.getCanonicalFile();
+        String key = lang + ":" + canonical.getPath();
+        long lastModified = canonical.lastModified();
+        long length = canonical.length();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+            hits.increment();
+            return entry.source;
+        }
+        byte[] content = Files.readAllBytes(canonical.toPath());
+        long hash = hash(content);
+        if (entry != null && entry.hash == hash) {
+            revalidations.increment();
+            entry = new Entry(lastModified, length, hash, entry.source);
+        } else {
+            misses.increment();
+            Source source = Source.newBuilder(lang, canonical).content(new String(content, StandardCharsets.UTF_8)).build();
+            entry = new Entry(lastModified, length, hash, source);
+        }
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+        return entry.source;
+    }
+
+    private static long hash(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return ((long) content.length << 32) ^ crc.getValue();
+    }
+
+    /**
+     * @param file
+     * @return if anything was removed.
+     */
+    public boolean invalidate(File file) {
+        String path;
+        try {
+            path = file.getCanonicalPath();
+        } catch (IOException e) {
+            path = file.getAbsolutePath();
+        }
+        String p = path;
+        synchronized (entries) {
+            return entries.keySet().removeIf(k -> k.endsWith(":" + p));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return lookups that reused a cached source without reading the file.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return lookups that had to build a new source.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return lookups where the file was touched but its content was unchanged, so the cached source was kept.
+     */
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    public void resetMetrics() {
+        hits.reset();
+        misses.reset();
+        revalidations.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GraalSourceCache:{\"size\": %d, \"hits\": %d, \"misses\": %d, \"revalidations\": %d}", size(), getHits(), getMisses(), getRevalidations());
+    }
+
+    private static final class Entry {
+        final long lastModified;
+        final long length;
+        final long hash;
+        final Source source;
+
+        Entry(long lastModified, long length, long hash, Source source) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.hash = hash;
+            this.source = source;
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+package xyz.wagyourtail.jsmacros.graal.language.impl;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyObject;
+import xyz.wagyourtail.jsmacros.core.library.BaseLibrary;
+
+import java.util.function.Supplier;
+
+/**
+ * stands in for a per exec library in the bindings until the script first touches it.
+ * <p>
+ * on first access the library is constructed and, if the binding still points at this proxy, replaced with the real library,
+ * so later lookups through the global go straight to the host object.
+ * <p>
+ * until then the global is a proxy, not a host object, {@link GraalLanguageDefinition#hostAccess} turns it into the library
+ * when it's passed to a java method taking {@link Object} or {@link BaseLibrary}, but a parameter of the library's own type
+ * and checks like {@code Java.isJavaObject} or {@code instanceof} only see the library once a member of it was used.
+ *
+ * @since 2.0.1
+ */
+public class LazyLibraryProxy implements ProxyObject {
+    private final String lang;
+    private final String name;
+    private Supplier<BaseLibrary> factory;
+    private Value library;
+
+    public LazyLibraryProxy(String lang, String name, Supplier<BaseLibrary> factory) {
+        this.lang = lang;
+        this.name = name;
+        this.factory = factory;
+    }
+
+    private synchronized Value library() {
+        if (library == null) {
+            Context context = Context.getCurrent();
+            library = context.asValue(factory.get());
+            factory = null;
+            Value binds = context.getBindings(lang);
+            Value current = binds.getMember(name);
+            if (current != null && current.isProxyObject() && current.asProxyObject() == this) {
+                binds.putMember(name, library);
+            }
+        }
+        return library;
+    }
+
+    /**
+     * @param value
+     * @return if {@code value} is a library that wasn't constructed yet.
+     */
+    public static boolean isLazyLibrary(Value value) {
+        return value.isProxyObject() && value.asProxyObject() instanceof LazyLibraryProxy;
+    }
+
+    /**
+     * @param value a value {@link #isLazyLibrary(Value)} accepted.
+     * @return the library, constructed now if it wasn't yet.
+     */
+    public static BaseLibrary resolve(Value value) {
+        return value.<LazyLibraryProxy>asProxyObject().library().asHostObject();
+    }
+
+    @Override
+    public Object getMember(String key) {
+        return library().getMember(key);
+    }
+
+    @Override
+    public Object getMemberKeys() {
+        return library().getMemberKeys().toArray(new String[0]);
+    }
+
+    @Override
+    public boolean hasMember(String key) {
+        return library().hasMember(key);
+    }
+
+    @Override
+    public void putMember(String key, Value value) {
+        library().putMember(key, value);
+    }
+
+    @Override
+    public String toString() {
+        return library == null ? "LazyLibrary:{\"name\": \"" + name + "\"}" : library.toString();
+    }
+
+}
@@ -0,0 +1,115 @@
+package xyz.wagyourtail.jsmacros.graal.language.impl;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * how long tasks of a {@link GraalScriptContext} waited in its queue before they got the context, by priority.
+ *
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class SchedulerStats {
+    private final Map<Integer, Wait> waits = new ConcurrentHashMap<>();
+    private final LongAdder sliceYields = new LongAdder();
+
+    void recordWait(int priority, long nanos) {
+        waits.computeIfAbsent(priority, p -> new Wait()).record(nanos);
+    }
+
+    void recordSliceYield() {
+        sliceYields.increment();
+    }
+
+    /**
+     * @return times a task gave up the context because its time slice ran out.
+     */
+    public long getSliceYields() {
+        return sliceYields.sum();
+    }
+
+    /**
+     * @return times a task got the context.
+     */
+    public long getAcquisitions() {
+        long total = 0;
+        for (Wait wait : waits.values()) {
+            total += wait.count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return average wait in milliseconds over all priorities.
+     */
+    public double getAverageWait() {
+        long count = 0;
+        long total = 0;
+        for (Wait wait : waits.values()) {
+            count += wait.count.sum();
+            total += wait.total.sum();
+        }
+        return count == 0 ? 0 : total / 1_000_000d / count;
+    }
+
+    /**
+     * @return longest wait in milliseconds over all priorities.
+     */
+    public double getMaxWait() {
+        long max = 0;
+        for (Wait wait : waits.values()) {
+            max = Math.max(max, wait.max.get());
+        }
+        return max / 1_000_000d;
+    }
+
+    /**
+     * @return average wait in milliseconds for each priority.
+     */
+    public Map<Integer, Double> getAverageWaitByPriority() {
+        Map<Integer, Double> map = new TreeMap<>();
+        waits.forEach((k, v) -> map.put(k, v.average()));
+        return map;
+    }
+
+    /**
+     * @return longest wait in milliseconds for each priority.
+     */
+    public Map<Integer, Double> getMaxWaitByPriority() {
+        Map<Integer, Double> map = new TreeMap<>();
+        waits.forEach((k, v) -> map.put(k, v.max.get() / 1_000_000d));
+        return map;
+    }
+
+    public void reset() {
+        waits.clear();
+        sliceYields.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SchedulerStats:{\"acquisitions\": %d, \"averageWait\": %.3f, \"maxWait\": %.3f, \"sliceYields\": %d}", getAcquisitions(), getAverageWait(), getMaxWait(), getSliceYields());
+    }
+
+    private static final class Wait {
+        final LongAdder count = new LongAdder();
+        final LongAdder total = new LongAdder();
+        final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            total.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        double average() {
+            long c = count.sum();
+            return c == 0 ? 0 : total.sum() / 1_000_000d / c;
+        }
+
+    }
+
+}
@@ -4,12 +4,51 @@ import java.util.concurrent.locks.LockSupport;
 
 public class WrappedThread {
     public final Thread thread;
+    /**
+     * position in the task queue, lower than {@link #basePriority} while waiting after a time slice ran out.
+     */
     public final int priority;
+    /**
+     * @since 2.0.1
+     */
+    public final int basePriority;
     private volatile boolean ready = false;
+    private volatile long queuedAt = System.nanoTime();
 
     public WrappedThread(Thread thread, int priority) {
+        this(thread, priority, priority);
+    }
+
+    /**
+     * @param thread
+     * @param priority     priority in the queue for this wait
+     * @param basePriority priority the task goes back to once it holds the context
+     * @since 2.0.1
+     */
+    public WrappedThread(Thread thread, int priority, int basePriority) {
         this.thread = thread;
         this.priority = priority;
+        this.basePriority = basePriority;
+    }
+
+    /**
+     * make this entry usable for another trip through the queue, only call it while the entry isn't queued.
+     *
+     * @return self for chaining
+     * @since 2.0.1
+     */
+    public WrappedThread reset() {
+        ready = false;
+        queuedAt = System.nanoTime();
+        return this;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} when this entry was created or last reset.
+     * @since 2.0.1
+     */
+    public long getQueuedAt() {
+        return queuedAt;
     }
 
     public void waitUntilReady() throws InterruptedException {
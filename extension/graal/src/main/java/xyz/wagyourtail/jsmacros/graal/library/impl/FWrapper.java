@@ -12,7 +12,12 @@ import xyz.wagyourtail.jsmacros.core.library.Library;
 import xyz.wagyourtail.jsmacros.core.library.PerExecLanguageLibrary;
 import xyz.wagyourtail.jsmacros.graal.language.impl.GraalLanguageDefinition;
 import xyz.wagyourtail.jsmacros.graal.language.impl.GraalScriptContext;
+import xyz.wagyourtail.jsmacros.graal.language.impl.SchedulerStats;
 import xyz.wagyourtail.jsmacros.graal.language.impl.WrappedThread;
+import xyz.wagyourtail.jsmacros.graal.library.impl.classes.WorkerPool;
+
+import java.io.File;
+import java.util.function.Function;
 
 /**
  * {@link FunctionalInterface} implementation for wrapping methods to match the language spec.
@@ -37,6 +42,10 @@ import xyz.wagyourtail.jsmacros.graal.language.impl.WrappedThread;
  * <p>
  * LUA:
  * no limitations
+ * <p>
+ * like the other per exec libraries, graal binds this lazily, until a member of {@code JavaWrapper} is used the global
+ * is a {@link xyz.wagyourtail.jsmacros.graal.language.impl.LazyLibraryProxy LazyLibraryProxy}, so {@code Java.isJavaObject(JavaWrapper)}
+ * is false and it only arrives as this class in java methods taking {@link Object} or a library.
  *
  * @author Wagyourtail
  * @since 1.2.5, re-named from {@code consumer} in 1.4.0
@@ -108,7 +117,45 @@ public class FWrapper extends PerExecLanguageLibrary<Context, GraalScriptContext
     @Override
     public int getCurrentPriority() {
         assert ctx.tasks.peek() != null;
-        return ctx.tasks.peek().priority;
+        return ctx.tasks.peek().basePriority;
+    }
+
+    /**
+     * JS only, gives the context to waiting tasks if this task has used up its time slice, see the time slice setting.
+     * long loops that don't call into java can call this to stay fair to async callbacks.
+     *
+     * @return if the task yielded.
+     * @throws InterruptedException
+     * @since 2.0.1
+     */
+    public boolean yieldIfSliceExpired() throws InterruptedException {
+        return ctx.yieldIfSliceExpired();
+    }
+
+    /**
+     * @return how long tasks of this script waited for the context, by priority.
+     * @since 2.0.1
+     */
+    public SchedulerStats getSchedulerStats() {
+        return ctx.schedulerStats;
+    }
+
+    /**
+     * start {@code threads} sibling contexts that each load {@code moduleFile}, for spreading cpu heavy work over several cores.
+     * the worker functions run in their own contexts, so they can't see this script's variables or libraries.
+     *
+     * @param threads    number of workers
+     * @param moduleFile script defining the functions workers can run, relative to this script's folder
+     * @return a new worker pool, closed along with this script.
+     * @throws Exception if the module fails to load
+     * @since 2.0.1
+     */
+    public WorkerPool createWorkerPool(int threads, String moduleFile) throws Exception {
+        File file = new File(moduleFile);
+        if (!file.isAbsolute()) {
+            file = new File(ctx.getContainedFolder(), moduleFile);
+        }
+        return new WorkerPool(ctx, threads, file);
     }
 
     /**
@@ -122,6 +169,15 @@ public class FWrapper extends PerExecLanguageLibrary<Context, GraalScriptContext
         ctx.closeContext();
     }
 
+    private static final Object[] NO_ARGS = new Object[0];
+
+    // results are converted while the context is still entered, primitives skip the generic host conversion.
+    // they're still boxed on the way out though, so compare results outside -128..127 allocate an Integer.
+    private static final Function<Value, Object> IGNORE = v -> null;
+    private static final Function<Value, Object> AS_OBJECT = v -> v.as(Object.class);
+    private static final Function<Value, Boolean> AS_BOOLEAN = v -> v.isBoolean() ? v.asBoolean() : (Boolean) v.as(Object.class);
+    private static final Function<Value, Integer> AS_INT = v -> v.fitsInInt() ? v.asInt() : (Integer) v.as(Object.class);
+
     private class JSMethodWrapper<T, U, R> extends MethodWrapper<T, U, R, GraalScriptContext> {
         private final Value fn;
         public final boolean await;
@@ -139,7 +195,7 @@ public class FWrapper extends PerExecLanguageLibrary<Context, GraalScriptContext
 
         private void innerAccept(Object... args) {
             if (await) {
-                innerApply(args);
+                innerApply(IGNORE, args);
                 return;
             }
 
@@ -148,28 +204,24 @@ public class FWrapper extends PerExecLanguageLibrary<Context, GraalScriptContext
             }
 
             Core.getInstance().threadPool.runTask(() -> {
+                WrappedThread wt = null;
+                boolean atHead = false;
                 try {
                     ctx.bindThread(Thread.currentThread());
                     if (!ctx.isMultiThreaded()) {
-                        WrappedThread wt = new WrappedThread(Thread.currentThread(), priority);
+                        wt = ctx.takeQueueEntry(Thread.currentThread(), priority);
                         ctx.tasks.add(wt);
 
                         // wait to be at the front of the queue again
-                        assert ctx.tasks.peek() != null;
-                        if (ctx.tasks.peek().thread != Thread.currentThread()) {
+                        if (ctx.tasks.peek() != wt) {
                             wt.waitUntilReady();
                         }
+                        atHead = true;
 
                         if (ctx.isContextClosed()) {
-                            ctx.unbindThread(Thread.currentThread());
-                            assert ctx.tasks.peek() != null;
-                            ctx.tasks.poll();
-                            WrappedThread next = ctx.tasks.peek();
-                            if (next != null) {
-                                next.notifyReady();
-                            }
                             throw new BaseScriptContext.ScriptAssertionError("Context closed");
                         }
+                        ctx.acquired(wt);
                     }
 
                     ctx.getContext().enter();
@@ -187,47 +239,46 @@ public class FWrapper extends PerExecLanguageLibrary<Context, GraalScriptContext
                     throw new RuntimeException(e);
                 } finally {
                     ctx.unbindThread(Thread.currentThread());
-                    if (!ctx.isMultiThreaded()) {
-                        ctx.tasks.poll();
-                        WrappedThread next = ctx.tasks.peek();
-                        if (next != null) {
-                            next.notifyReady();
-                        }
-                    }
+                    leaveQueue(wt, atHead);
                 }
             });
         }
 
-        private <R2> R2 innerApply(Object... args) {
+        private <R2> R2 innerApply(Function<Value, R2> result, Object... args) {
             if (ctx.isContextClosed()) {
                 throw new BaseScriptContext.ScriptAssertionError("Context closed");
             }
 
-            if (ctx.getBoundThreads().contains(Thread.currentThread())) {
-                return (R2) fn.execute(args).as(Object.class);
+            // already inside the context, e.g. a filter called from the script's own thread, no queueing needed.
+            if (ctx.isBoundThread(Thread.currentThread())) {
+                if (ctx.getTimeSlice() > 0) {
+                    try {
+                        ctx.yieldIfSliceExpired();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return result.apply(fn.execute(args));
             }
 
+            WrappedThread wt = null;
+            boolean atHead = false;
             try {
                 ctx.bindThread(Thread.currentThread());
                 if (!ctx.isMultiThreaded()) {
-                    WrappedThread wt = new WrappedThread(Thread.currentThread(), priority);
+                    wt = ctx.takeQueueEntry(Thread.currentThread(), priority);
                     ctx.tasks.add(wt);
 
                     // wait to be at the front of the queue again
-                    WrappedThread peek = ctx.tasks.peek();
-                    if (peek.thread != Thread.currentThread()) {
+                    if (ctx.tasks.peek() != wt) {
                         wt.waitUntilReady();
                     }
+                    atHead = true;
 
                     if (ctx.isContextClosed()) {
-                        ctx.unbindThread(Thread.currentThread());
-                        ctx.tasks.poll();
-                        WrappedThread next = ctx.tasks.peek();
-                        if (next != null) {
-                            next.notifyReady();
-                        }
                         throw new BaseScriptContext.ScriptAssertionError("Context closed");
                     }
+                    ctx.acquired(wt);
                 }
 
                 ctx.getContext().enter();
@@ -235,7 +286,7 @@ public class FWrapper extends PerExecLanguageLibrary<Context, GraalScriptContext
                     if (await && Core.getInstance().profile.checkJoinedThreadStack()) {
                         Core.getInstance().profile.joinedThreadStack.add(Thread.currentThread());
                     }
-                    return (R2) fn.execute(args).as(Object.class);
+                    return result.apply(fn.execute(args));
                 } catch (Throwable ex) {
                     throw new RuntimeException(ex);
                 } finally {
@@ -248,14 +299,38 @@ public class FWrapper extends PerExecLanguageLibrary<Context, GraalScriptContext
                 throw new RuntimeException(e);
             } finally {
                 ctx.unbindThread(Thread.currentThread());
-                if (!ctx.isMultiThreaded()) {
-                    ctx.tasks.poll();
-                    WrappedThread next = ctx.tasks.peek();
-                    if (next != null) {
-                        next.notifyReady();
+                leaveQueue(wt, atHead);
+            }
+        }
+
+        /**
+         * take {@code wt} out of the task queue and wake the next task if it was at the front.
+         * if waiting for the front was interrupted, the entry can still be anywhere in the queue.
+         */
+        private void leaveQueue(WrappedThread wt, boolean atHead) {
+            if (wt == null) {
+                return;
+            }
+            if (atHead) {
+                ctx.tasks.poll();
+            } else {
+                boolean wasHead;
+                synchronized (ctx.tasks) {
+                    wasHead = ctx.tasks.peek() == wt;
+                    if (!ctx.tasks.remove(wt)) {
+                        return;
                     }
                 }
+                if (!wasHead) {
+                    ctx.recycleQueueEntry(wt);
+                    return;
+                }
+            }
+            WrappedThread next = ctx.tasks.peek();
+            if (next != null) {
+                next.notifyReady();
             }
+            ctx.recycleQueueEntry(wt);
         }
 
         @Override
@@ -270,37 +345,37 @@ public class FWrapper extends PerExecLanguageLibrary<Context, GraalScriptContext
 
         @Override
         public R apply(T t) {
-            return innerApply(t);
+            return (R) innerApply(AS_OBJECT, t);
         }
 
         @Override
         public R apply(T t, U u) {
-            return innerApply(t, u);
+            return (R) innerApply(AS_OBJECT, t, u);
         }
 
         @Override
         public boolean test(T t) {
-            return innerApply(t);
+            return innerApply(AS_BOOLEAN, t);
         }
 
         @Override
         public boolean test(T t, U u) {
-            return innerApply(t, u);
+            return innerApply(AS_BOOLEAN, t, u);
         }
 
         @Override
         public void run() {
-            innerAccept();
+            innerAccept(NO_ARGS);
         }
 
         @Override
         public int compare(T o1, T o2) {
-            return innerApply(o1, o2);
+            return innerApply(AS_INT, o1, o2);
         }
 
         @Override
         public R get() {
-            return innerApply();
+            return (R) innerApply(AS_OBJECT, NO_ARGS);
         }
 
     }
@@ -0,0 +1,313 @@
+package xyz.wagyourtail.jsmacros.graal.library.impl.classes;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
+import org.graalvm.polyglot.proxy.ProxyObject;
+import xyz.wagyourtail.doclet.DocletReplaceParams;
+import xyz.wagyourtail.jsmacros.core.Core;
+import xyz.wagyourtail.jsmacros.graal.GraalConfig;
+import xyz.wagyourtail.jsmacros.graal.language.impl.GraalLanguageDefinition;
+import xyz.wagyourtail.jsmacros.graal.language.impl.GraalScriptContext;
+import xyz.wagyourtail.jsmacros.graal.library.impl.FWrapper;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * a set of sibling contexts on the shared graal engine that run functions from a module file in parallel.
+ * <p>
+ * each worker evaluates the module once in its own context and then runs calls from a shared queue.
+ * arguments and results are copied between contexts, primitives and strings as is, arrays and plain objects
+ * as fresh copies, and java objects by reference, functions and other guest objects can't be passed.
+ * <p>
+ * the pool is closed with the script that created it.
+ *
+ * @see FWrapper#createWorkerPool(int, String)
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class WorkerPool {
+    private final GraalScriptContext owner;
+    private final File moduleFile;
+    private final String lang;
+    private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+    private final List<Worker> workers = new ArrayList<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    public WorkerPool(GraalScriptContext owner, int threads, File moduleFile) throws Exception {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        if (!moduleFile.isFile()) {
+            throw new IllegalArgumentException("worker module " + moduleFile + " doesn't exist");
+        }
+        if (owner.isContextClosed()) {
+            throw new IllegalStateException("Context closed");
+        }
+        this.owner = owner;
+        this.moduleFile = moduleFile;
+        String lang = Source.findLanguage(moduleFile);
+        if (lang == null || !GraalLanguageDefinition.engine.getLanguages().containsKey(lang)) {
+            lang = "js";
+        }
+        this.lang = lang;
+
+        GraalConfig conf = Core.getInstance().config.getOptions(GraalConfig.class);
+        Map<String, String> options = conf == null || conf.extraGraalOptions == null ? Collections.emptyMap() : new HashMap<>(conf.extraGraalOptions);
+        CountDownLatch ready = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(i, options, ready);
+            workers.add(worker);
+            worker.thread.start();
+        }
+        owner.workerPools.add(this);
+        try {
+            ready.await();
+        } catch (InterruptedException e) {
+            // nothing else would stop the workers before the owner closes.
+            close();
+            throw e;
+        }
+        for (Worker worker : workers) {
+            if (worker.initError != null) {
+                close();
+                throw new RuntimeException("Failed to load worker module " + moduleFile, worker.initError);
+            }
+        }
+    }
+
+    /**
+     * run a function defined at the top level of the worker module on the next free worker.
+     *
+     * @param fnName
+     * @param args copied into the worker's context.
+     * @return the copied result of the call.
+     */
+    @DocletReplaceParams("fnName: string, ...args: any[]")
+    public CompletableFuture<Object> submit(String fnName, Value... args) {
+        Object[] copied = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            copied[i] = copy(args[i]);
+        }
+        return enqueue(fnName, copied);
+    }
+
+    /**
+     * call a worker function once for each element of {@code list}, spread over all workers.
+     *
+     * @param list
+     * @param fnName
+     * @return the copied results, in the same order as {@code list}.
+     */
+    @DocletReplaceParams("list: any[], fnName: string")
+    public CompletableFuture<List<Object>> map(Value list, String fnName) {
+        if (!list.hasArrayElements()) {
+            throw new IllegalArgumentException("map expects an array");
+        }
+        List<CompletableFuture<Object>> futures = new ArrayList<>((int) list.getArraySize());
+        for (long i = 0; i < list.getArraySize(); i++) {
+            futures.add(enqueue(fnName, new Object[] {copy(list.getArrayElement(i))}));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<Object> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<Object> f : futures) {
+                results.add(f.join());
+            }
+            return results;
+        });
+    }
+
+    /**
+     * wait for a future from this pool without holding up the rest of the calling script,
+     * other tasks of the script's context can run in the meantime.
+     *
+     * @param future
+     * @return the future's result.
+     * @throws InterruptedException
+     * @throws ExecutionException if the worker call threw.
+     */
+    public <T> T await(CompletableFuture<T> future) throws InterruptedException, ExecutionException {
+        if (!future.isDone()) {
+            owner.wrapSleep(() -> {
+                try {
+                    future.get();
+                } catch (ExecutionException | CancellationException ignored) {
+                    // rethrown below, once the context is entered again.
+                }
+            });
+        }
+        return future.get();
+    }
+
+    private CompletableFuture<Object> enqueue(String fnName, Object[] args) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (closed.get()) {
+            future.completeExceptionally(new CancellationException("worker pool is closed"));
+            return future;
+        }
+        queue.add(new Task(fnName, args, future));
+        return future;
+    }
+
+    /**
+     * @return number of worker contexts.
+     */
+    public int getSize() {
+        return workers.size();
+    }
+
+    /**
+     * @return calls waiting for a free worker.
+     */
+    public int getPending() {
+        return queue.size();
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * stop all workers and close their contexts, calls that haven't finished are cancelled.
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        owner.workerPools.remove(this);
+        for (Worker worker : workers) {
+            worker.thread.interrupt();
+        }
+        Task task;
+        while ((task = queue.poll()) != null) {
+            task.future.completeExceptionally(new CancellationException("worker pool is closed"));
+        }
+        for (Worker worker : workers) {
+            Context context = worker.context;
+            if (context != null) {
+                try {
+                    // cancels a call that is still running, idle workers close their own context.
+                    context.close(true);
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+    }
+
+    // structured clone, the result can be handed to any context.
+    private static Object copy(Value value) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (value.isBoolean()) {
+            return value.asBoolean();
+        }
+        if (value.isNumber()) {
+            if (value.fitsInInt()) {
+                return value.asInt();
+            }
+            if (value.fitsInLong()) {
+                return value.asLong();
+            }
+            return value.asDouble();
+        }
+        if (value.isString()) {
+            return value.asString();
+        }
+        if (value.isHostObject()) {
+            return value.asHostObject();
+        }
+        if (value.hasArrayElements()) {
+            List<Object> list = new ArrayList<>((int) value.getArraySize());
+            for (long i = 0; i < value.getArraySize(); i++) {
+                list.add(copy(value.getArrayElement(i)));
+            }
+            return ProxyArray.fromList(list);
+        }
+        if (value.canExecute()) {
+            throw new IllegalArgumentException("functions can't be passed between worker contexts");
+        }
+        if (value.hasMembers()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (String key : value.getMemberKeys()) {
+                map.put(key, copy(value.getMember(key)));
+            }
+            return ProxyObject.fromMap(map);
+        }
+        throw new IllegalArgumentException("can't pass " + value + " between worker contexts");
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WorkerPool:{\"module\": \"%s\", \"size\": %d, \"pending\": %d, \"closed\": %s}", moduleFile, workers.size(), queue.size(), closed.get());
+    }
+
+    private record Task(String fnName, Object[] args, CompletableFuture<Object> future) {
+    }
+
+    private class Worker implements Runnable {
+        final Thread thread;
+        final Map<String, String> options;
+        final CountDownLatch ready;
+        volatile Context context;
+        volatile Throwable initError;
+
+        Worker(int index, Map<String, String> options, CountDownLatch ready) {
+            this.options = options;
+            this.ready = ready;
+            this.thread = new Thread(this, "Worker-" + index + ":" + moduleFile.getName());
+            this.thread.setDaemon(true);
+            this.thread.setContextClassLoader(WorkerPool.class.getClassLoader());
+        }
+
+        @Override
+        public void run() {
+            Context context = null;
+            try {
+                context = GraalLanguageDefinition.newContext(moduleFile.getParentFile(), lang, options);
+                context.enter();
+                context.eval(GraalLanguageDefinition.sourceCache.get(lang, moduleFile));
+                this.context = context;
+            } catch (Throwable t) {
+                initError = t;
+                if (context != null) {
+                    context.close(true);
+                }
+                return;
+            } finally {
+                ready.countDown();
+            }
+            Value bindings = context.getBindings(lang);
+            try {
+                while (!closed.get()) {
+                    Task task = queue.take();
+                    if (task.future.isDone()) {
+                        continue;
+                    }
+                    try {
+                        Value fn = bindings.getMember(task.fnName);
+                        if (fn == null || !fn.canExecute()) {
+                            throw new IllegalArgumentException("worker module doesn't define a function " + task.fnName);
+                        }
+                        task.future.complete(copy(fn.execute(task.args)));
+                    } catch (Throwable t) {
+                        task.future.completeExceptionally(t);
+                    }
+                }
+            } catch (InterruptedException ignored) {
+            } finally {
+                try {
+                    context.leave();
+                    context.close();
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+
+    }
+
+}
@@ -1,85 +1,109 @@
 package xyz.wagyourtail;
 
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
-import java.util.function.Function;
-
+import java.util.function.ToIntFunction;
+
+/**
+ * queue ordered by lowest priority value first, FIFO within the same priority.
+ * the head ({@link #peek()}) is pinned until it's removed, so adding a more important task doesn't
+ * replace the task that currently holds the context.
+ * <p>
+ * add, poll and remove are O(log n).
+ */
 public class PrioryFiFoTaskQueue<E> implements Queue<E> {
     volatile E currentTask;
-    final Int2ObjectOpenHashMap<List<E>> tasks = new Int2ObjectOpenHashMap<>();
-    final Set<E> taskSet = new HashSet<>();
-    final Function<E, Integer> priorityFunction;
+    final TreeSet<Node<E>> tasks = new TreeSet<>();
+    final Map<E, Node<E>> nodes = new HashMap<>();
+    final ToIntFunction<? super E> priorityFunction;
+    long nextSequence = 0;
 
-    public PrioryFiFoTaskQueue(Function<E, Integer> priorityFunction) {
+    public PrioryFiFoTaskQueue(ToIntFunction<? super E> priorityFunction) {
         this.priorityFunction = priorityFunction;
     }
 
     @Override
     public synchronized int size() {
-        return tasks.size();
+        return nodes.size();
     }
 
     @Override
     public synchronized boolean isEmpty() {
-        return tasks.isEmpty();
+        return nodes.isEmpty();
     }
 
     @Override
     public synchronized boolean contains(Object o) {
-        return taskSet.contains(o);
+        return nodes.containsKey(o);
     }
 
+    /**
+     * @return iterator over a snapshot of the queue, in the order tasks will be polled.
+     */
     @NotNull
     @Override
     public synchronized Iterator<E> iterator() {
-        return taskSet.iterator();
+        return snapshot().iterator();
     }
 
     @NotNull
     @Override
     public synchronized Object[] toArray() {
-        return taskSet.toArray();
+        return snapshot().toArray();
     }
 
     @NotNull
     @Override
     public synchronized <T> T[] toArray(@NotNull T[] ts) {
-        return taskSet.toArray(ts);
+        return snapshot().toArray(ts);
+    }
+
+    private List<E> snapshot() {
+        List<E> list = new ArrayList<>(nodes.size());
+        if (currentTask != null) {
+            list.add(currentTask);
+        }
+        for (Node<E> node : tasks) {
+            if (node.value != currentTask) {
+                list.add(node.value);
+            }
+        }
+        return list;
     }
 
     @Override
     public synchronized boolean add(E e) {
-        boolean wasEmpty = taskSet.isEmpty();
-        if (taskSet.add(e)) {
-            if (wasEmpty) {
-                currentTask = e;
-            }
-            tasks.computeIfAbsent(priorityFunction.apply(e), k -> new ArrayList<>()).add(e);
+        if (nodes.containsKey(e)) {
+            return false;
+        }
+        Node<E> node = new Node<>(e, priorityFunction.applyAsInt(e), nextSequence++);
+        nodes.put(e, node);
+        tasks.add(node);
+        if (currentTask == null) {
+            currentTask = e;
+            // only waiters on an empty queue exist, so only wake them on that transition.
             this.notifyAll();
-            return true;
         }
-        return false;
+        return true;
     }
 
     @Override
     public synchronized boolean remove(Object o) {
-        if (taskSet.remove(o)) {
-            int prio = priorityFunction.apply((E) o);
-            List<E> list = tasks.get(prio);
-            list.remove(o);
-            if (list.isEmpty()) {
-                tasks.remove(prio);
-            }
-            return true;
+        Node<E> node = nodes.remove(o);
+        if (node == null) {
+            return false;
+        }
+        tasks.remove(node);
+        if (node.value == currentTask) {
+            currentTask = tasks.isEmpty() ? null : tasks.first().value;
         }
-        return false;
+        return true;
     }
 
     @Override
     public synchronized boolean containsAll(@NotNull Collection<?> collection) {
-        return taskSet.containsAll(collection);
+        return nodes.keySet().containsAll(collection);
     }
 
     @Override
@@ -103,9 +127,9 @@ public class PrioryFiFoTaskQueue<E> implements Queue<E> {
     @Override
     public synchronized boolean retainAll(@NotNull Collection<?> collection) {
         boolean changed = false;
-        for (Object o : taskSet) {
-            if (!collection.contains(o)) {
-                changed |= remove(o);
+        for (E e : new ArrayList<>(nodes.keySet())) {
+            if (!collection.contains(e)) {
+                changed |= remove(e);
             }
         }
         return changed;
@@ -113,8 +137,9 @@ public class PrioryFiFoTaskQueue<E> implements Queue<E> {
 
     @Override
     public synchronized void clear() {
-        taskSet.clear();
+        nodes.clear();
         tasks.clear();
+        currentTask = null;
     }
 
     @Override
@@ -127,7 +152,6 @@ public class PrioryFiFoTaskQueue<E> implements Queue<E> {
         E e = currentTask;
         if (e != null) {
             remove(e);
-            currentTask = getLowestPrioItem();
         }
         return e;
     }
@@ -138,7 +162,7 @@ public class PrioryFiFoTaskQueue<E> implements Queue<E> {
     }
 
     public synchronized E pollWaiting() throws InterruptedException {
-        while (taskSet.isEmpty()) {
+        while (nodes.isEmpty()) {
             this.wait();
         }
         return remove();
@@ -146,7 +170,7 @@ public class PrioryFiFoTaskQueue<E> implements Queue<E> {
 
     public synchronized E pollWaiting(long timeout) throws InterruptedException {
         long timeoutLeft = timeout;
-        while (taskSet.isEmpty() && timeoutLeft > 0) {
+        while (nodes.isEmpty() && timeoutLeft > 0) {
             long start = System.currentTimeMillis();
             this.wait(timeoutLeft);
             timeoutLeft -= System.currentTimeMillis() - start;
@@ -155,40 +179,56 @@ public class PrioryFiFoTaskQueue<E> implements Queue<E> {
     }
 
     public synchronized E peekWaiting() throws InterruptedException {
-        if (taskSet.isEmpty()) {
+        if (nodes.isEmpty()) {
             this.wait();
         }
         return currentTask;
     }
 
     public synchronized E peekWaiting(long timeout) throws InterruptedException {
-        if (taskSet.isEmpty()) {
+        if (nodes.isEmpty()) {
             this.wait(timeout);
         }
         return currentTask;
     }
 
+    /**
+     * @return the task that would be polled last, {@code null} if the queue is empty.
+     */
+    public synchronized E peekLast() {
+        return tasks.isEmpty() ? null : tasks.last().value;
+    }
+
     @Override
-    public synchronized E element() {
+    public E element() {
         return currentTask;
     }
 
+    /**
+     * lock-free, the head only changes on add to an empty queue or on removal of the head.
+     */
     @Override
-    public synchronized E peek() {
+    public E peek() {
         return currentTask;
     }
 
-    private synchronized E getLowestPrioItem() {
-        if (tasks.isEmpty()) {
-            return null;
+    static final class Node<E> implements Comparable<Node<E>> {
+        final E value;
+        final int priority;
+        final long sequence;
+
+        Node(E value, int priority, long sequence) {
+            this.value = value;
+            this.priority = priority;
+            this.sequence = sequence;
         }
-        int lowestPrio = Integer.MAX_VALUE;
-        for (int prio : tasks.keySet()) {
-            if (prio < lowestPrio) {
-                lowestPrio = prio;
-            }
+
+        @Override
+        public int compareTo(@NotNull Node<E> o) {
+            int cmp = Integer.compare(priority, o.priority);
+            return cmp != 0 ? cmp : Long.compare(sequence, o.sequence);
         }
-        return tasks.get(lowestPrio).get(0);
+
     }
 
 }
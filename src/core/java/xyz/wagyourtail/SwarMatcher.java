@@ -0,0 +1,121 @@
+package xyz.wagyourtail;
+
+import java.util.function.IntConsumer;
+
+/**
+ * compares all values packed in a long against a few target values at once, instead of unpacking them one by one.
+ * a field is zero after xor-ing it with the value it's compared to, and whether a field is zero is
+ * found for all fields together with one add, without carries between fields.
+ * <p>
+ * values are packed like minecraft's packed integer arrays, {@code 64 / elementBits} per long starting at the lowest bits,
+ * without values spanning two longs.
+ *
+ * @since 2.0.1
+ */
+public final class SwarMatcher {
+    private final long[] data;
+    private final int elementBits;
+    private final int elementsPerLong;
+    private final int size;
+    // the highest bit of every field and all but the highest bit of every field
+    private final long high;
+    private final long rest;
+    private final long[] patterns;
+
+    /**
+     * @param data        the packed values.
+     * @param elementBits bits per value, between 1 and 32.
+     * @param size        number of values in {@code data}.
+     * @param targets     the values to look for, they have to fit in {@code elementBits}.
+     */
+    public SwarMatcher(long[] data, int elementBits, int size, int[] targets) {
+        if (elementBits < 1 || elementBits > 32) {
+            throw new IllegalArgumentException("elementBits must be between 1 and 32, got " + elementBits);
+        }
+        this.data = data;
+        this.elementBits = elementBits;
+        this.elementsPerLong = 64 / elementBits;
+        this.size = size;
+        if (size < 0 || (size + elementsPerLong - 1) / elementsPerLong > data.length) {
+            throw new IllegalArgumentException("size " + size + " doesn't fit in " + data.length + " longs");
+        }
+        long low = 0;
+        for (int i = 0; i < elementsPerLong; i++) {
+            low |= 1L << (i * elementBits);
+        }
+        this.high = low << (elementBits - 1);
+        this.rest = low * ((1L << (elementBits - 1)) - 1);
+        this.patterns = new long[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            patterns[i] = low * (targets[i] & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * only worth it when few values are compared per field and many fields fit a long.
+     *
+     * @param elementBits
+     * @param targetCount
+     */
+    public static boolean isWorthIt(int elementBits, int targetCount) {
+        return elementBits > 0 && elementBits <= 32 && targetCount * 4 <= 64 / elementBits;
+    }
+
+    /**
+     * @param i index into the data.
+     * @return the highest bit of every field of {@code data[i]} that matches, without fields past the end of the values.
+     */
+    public long matches(int i) {
+        long row = data[i];
+        long found = 0;
+        for (long pattern : patterns) {
+            long x = row ^ pattern;
+            found |= ~(((x & rest) + rest) | x) & high;
+        }
+        int remaining = size - i * elementsPerLong;
+        if (remaining < elementsPerLong) {
+            found = remaining <= 0 ? 0 : found & ((1L << (remaining * elementBits)) - 1);
+        }
+        return found;
+    }
+
+    /**
+     * @param action called with the index of every matching value, in order.
+     */
+    public void forEach(IntConsumer action) {
+        int longs = (size + elementsPerLong - 1) / elementsPerLong;
+        for (int i = 0; i < longs; i++) {
+            long found = matches(i);
+            int counter = i * elementsPerLong;
+            while (found != 0) {
+                action.accept(counter + Long.numberOfTrailingZeros(found) / elementBits);
+                found &= found - 1;
+            }
+        }
+    }
+
+    /**
+     * @return number of matching values.
+     */
+    public int count() {
+        int longs = (size + elementsPerLong - 1) / elementsPerLong;
+        int amount = 0;
+        for (int i = 0; i < longs; i++) {
+            amount += Long.bitCount(matches(i));
+        }
+        return amount;
+    }
+
+    public int getElementBits() {
+        return elementBits;
+    }
+
+    public int getElementsPerLong() {
+        return elementsPerLong;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+}
@@ -1,7 +1,6 @@
 package xyz.wagyourtail.jsmacros.core;
 
 import org.slf4j.Logger;
-import xyz.wagyourtail.SynchronizedWeakHashSet;
 import xyz.wagyourtail.jsmacros.core.config.BaseProfile;
 import xyz.wagyourtail.jsmacros.core.config.ConfigManager;
 import xyz.wagyourtail.jsmacros.core.config.CoreConfigV2;
@@ -13,8 +12,12 @@ import xyz.wagyourtail.jsmacros.core.extensions.ExtensionLoader;
 import xyz.wagyourtail.jsmacros.core.extensions.LanguageExtension;
 import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
 import xyz.wagyourtail.jsmacros.core.language.BaseWrappedException;
+import xyz.wagyourtail.jsmacros.core.language.ContextRegistry;
 import xyz.wagyourtail.jsmacros.core.language.EventContainer;
+import xyz.wagyourtail.jsmacros.core.language.ResolvedTrigger;
 import xyz.wagyourtail.jsmacros.core.library.LibraryRegistry;
+import xyz.wagyourtail.jsmacros.core.profiler.ContextDiagnostics;
+import xyz.wagyourtail.jsmacros.core.profiler.DispatchProfiler;
 import xyz.wagyourtail.jsmacros.core.service.ServiceManager;
 import xyz.wagyourtail.jsmacros.core.threads.JsMacrosThreadPool;
 
@@ -33,7 +36,7 @@ public class Core<T extends BaseProfile, U extends BaseEventRegistry> {
      */
     private static Core<?, ?> instance;
 
-    private final Set<BaseScriptContext<?>> contexts = new SynchronizedWeakHashSet<>();
+    private final ContextRegistry contexts = new ContextRegistry();
 
     public final LibraryRegistry libraryRegistry = new LibraryRegistry();
     public final BaseEventRegistry eventRegistry;
@@ -44,7 +47,22 @@ public class Core<T extends BaseProfile, U extends BaseEventRegistry> {
     public final ConfigManager config;
     public final ServiceManager services;
 
-    public final JsMacrosThreadPool threadPool = new JsMacrosThreadPool();
+    public final JsMacrosThreadPool threadPool;
+
+    /**
+     * @since 2.0.1
+     */
+    public final DispatchProfiler profiler;
+
+    /**
+     * @since 2.0.1
+     */
+    public final ResolvedTrigger.Cache triggerCache = new ResolvedTrigger.Cache(this);
+
+    /**
+     * @since 2.0.1
+     */
+    public final ContextDiagnostics diagnostics = new ContextDiagnostics(this);
 
     private boolean deferredInit = false;
 
@@ -52,6 +70,9 @@ public class Core<T extends BaseProfile, U extends BaseEventRegistry> {
         instance = this;
         eventRegistry = eventRegistryFunction.apply(this);
         config = new ConfigManager(configFolder, macroFolder, logger);
+        CoreConfigV2 coreConfig = config.getOptions(CoreConfigV2.class);
+        threadPool = new JsMacrosThreadPool(coreConfig.threadPoolCoreSize, coreConfig.threadPoolMaxSize, coreConfig.virtualThreads);
+        profiler = new DispatchProfiler(coreConfig.dispatchProfiler);
         profile = profileFunction.apply(this, logger);
 
         extensions = new ExtensionLoader(this);
@@ -69,6 +90,7 @@ public class Core<T extends BaseProfile, U extends BaseEventRegistry> {
         if (deferredInit) {
             throw new RuntimeException("deferredInit has already ran!");
         }
+        instance.extensions.awaitLoad();
         instance.profile.init(instance.config.getOptions(CoreConfigV2.class).defaultProfile);
         instance.services.load();
         deferredInit = true;
@@ -88,6 +110,15 @@ public class Core<T extends BaseProfile, U extends BaseEventRegistry> {
         return contexts;
     }
 
+    /**
+     * same as {@link #getContexts()}, with snapshot and count methods.
+     *
+     * @since 2.0.1
+     */
+    public ContextRegistry getContextRegistry() {
+        return contexts;
+    }
+
     /**
      * start by running this function, supplying implementations of {@link BaseEventRegistry} and {@link BaseProfile} and a {@link Supplier} for
      * creating the config manager with the folder paths it needs.
@@ -132,12 +163,8 @@ public class Core<T extends BaseProfile, U extends BaseEventRegistry> {
     public EventContainer<?> exec(ScriptTrigger macro, BaseEvent event, Runnable then,
                                   Consumer<Throwable> catcher) {
 
-        final File file = new File(this.config.macroFolder, macro.scriptFile);
-        LanguageExtension l = extensions.getExtensionForFile(file);
-        if (l == null) {
-            l = extensions.getHighestPriorityExtension();
-        }
-        return l.getLanguage(this).trigger(macro, event, then, catcher);
+        ResolvedTrigger resolved = triggerCache.resolve(macro);
+        return resolved.language.trigger(resolved, macro, event, then, catcher);
     }
 
     /**
@@ -4,45 +4,100 @@ import xyz.wagyourtail.jsmacros.core.event.BaseListener;
 import xyz.wagyourtail.jsmacros.core.event.IEventListener;
 import xyz.wagyourtail.jsmacros.core.language.EventContainer;
 
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
 public class EventLockWatchdog {
 
     private static Core<?, ?> core = Core.getInstance();
 
+    private static final DelayQueue<Deadline> deadlines = new DelayQueue<>();
+
+    static {
+        Thread t = new Thread(EventLockWatchdog::watch, "JsMacros Lock Watchdog");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        t.start();
+    }
+
     public static void startWatchdog(EventContainer<?> lock, IEventListener listener, long maxTime) {
-        core.threadPool.runTask(() -> {
-            Thread t = new Thread(() -> {
-                try {
-                    Thread.sleep(maxTime);
-                    synchronized (lock) {
-                        if (!lock.isLocked()) {
-                            return;
-                        }
-                    }
-                    lock.getCtx().closeContext();
-                    lock.releaseLock();
-                    if (listener instanceof BaseListener) {
-                        ((BaseListener) listener).getRawTrigger().enabled = false;
-                    }
-                    WatchdogException ex = new WatchdogException(String.format("Script \n\"%s\"\n joined longer than allowed time of %d ms.", listener.toString(), maxTime));
-                    Core.getInstance().profile.logError(ex);
-                } catch (InterruptedException ignored) {
-                }
-            });
-            Thread u = new Thread(() -> {
-                try {
-                    lock.awaitLock(() -> {
-                        synchronized (lock) {
-                            t.interrupt();
-                        }
-                    });
-                } catch (InterruptedException ignored) {
+        Deadline deadline = new Deadline(lock, listener, maxTime);
+        // lock may have already been released, nothing to watch then.
+        if (lock.setWatchdog(deadline)) {
+            deadlines.add(deadline);
+        }
+    }
+
+    private static void watch() {
+        while (true) {
+            Deadline deadline;
+            try {
+                deadline = deadlines.take();
+            } catch (InterruptedException ignored) {
+                continue;
+            }
+            if (!deadline.cancelled) {
+                // closing the context can block, keep this thread free for the other deadlines.
+                core.threadPool.runTask(deadline::expire);
+            }
+        }
+    }
+
+    /**
+     * a pending timeout for a joined {@link EventContainer}, cancelled by {@link EventContainer#releaseLock()}.
+     *
+     * @since 2.0.1
+     */
+    public static final class Deadline implements Delayed {
+        private final EventContainer<?> lock;
+        private final IEventListener listener;
+        private final long maxTime;
+        private final long deadline;
+        private volatile boolean cancelled = false;
+
+        private Deadline(EventContainer<?> lock, IEventListener listener, long maxTime) {
+            this.lock = lock;
+            this.listener = listener;
+            this.maxTime = maxTime;
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxTime);
+        }
+
+        /**
+         * O(1), the entry is dropped from the queue once its deadline passes.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void expire() {
+            synchronized (lock) {
+                if (cancelled || !lock.isLocked()) {
+                    return;
                 }
-            });
-            t.setPriority(Thread.NORM_PRIORITY - 1);
-            u.setPriority(Thread.NORM_PRIORITY - 1);
-            t.start();
-            u.start();
-        });
+            }
+            lock.getCtx().closeContext();
+            lock.releaseLock();
+            if (listener instanceof BaseListener) {
+                ((BaseListener) listener).getRawTrigger().enabled = false;
+            }
+            WatchdogException ex = new WatchdogException(String.format("Script \n\"%s\"\n joined longer than allowed time of %d ms.", listener.toString(), maxTime));
+            Core.getInstance().profile.logError(ex);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            if (o instanceof Deadline) {
+                return Long.compare(deadline, ((Deadline) o).deadline);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+        }
+
     }
 
     private static class WatchdogException extends RuntimeException {
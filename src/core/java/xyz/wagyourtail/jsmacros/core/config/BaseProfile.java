@@ -1,16 +1,20 @@
 package xyz.wagyourtail.jsmacros.core.config;
 
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import xyz.wagyourtail.jsmacros.core.Core;
 import xyz.wagyourtail.jsmacros.core.EventLockWatchdog;
 import xyz.wagyourtail.jsmacros.core.event.BaseEvent;
 import xyz.wagyourtail.jsmacros.core.event.BaseEventRegistry;
+import xyz.wagyourtail.jsmacros.core.event.EventMeta;
 import xyz.wagyourtail.jsmacros.core.event.IEventListener;
+import xyz.wagyourtail.jsmacros.core.event.IndexedEvent;
 import xyz.wagyourtail.jsmacros.core.event.impl.EventCustom;
 import xyz.wagyourtail.jsmacros.core.event.impl.EventProfileLoad;
 import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
 import xyz.wagyourtail.jsmacros.core.language.EventContainer;
 import xyz.wagyourtail.jsmacros.core.library.impl.*;
+import xyz.wagyourtail.jsmacros.core.profiler.DispatchProfiler;
 
 import java.util.*;
 
@@ -70,6 +74,7 @@ public abstract class BaseProfile {
      */
     protected boolean loadProfile(String pName) {
         runner.eventRegistry.clearMacros();
+        runner.triggerCache.invalidateAll();
         final List<ScriptTrigger> rawProfile = runner.config.getOptions(CoreConfigV2.class).profiles.get(pName);
         if (rawProfile == null) {
             LOGGER.warn("profile \"" + pName + "\" does not exist or is broken/null");
@@ -97,51 +102,95 @@ public abstract class BaseProfile {
      * @since 1.2.7
      */
     public void triggerEvent(BaseEvent event) {
+        DispatchProfiler profiler = runner.profiler;
+        if (!profiler.isEnabled()) {
+            dispatchEvent(event, null);
+            return;
+        }
+        String eventName = event instanceof EventCustom ? ((EventCustom) event).eventName : event.getEventName();
+        long start = System.nanoTime();
+        try {
+            dispatchEvent(event, profiler);
+        } finally {
+            profiler.event(eventName).dispatch.record(System.nanoTime() - start);
+        }
+    }
+
+    private void dispatchEvent(BaseEvent event, @Nullable DispatchProfiler profiler) {
         boolean joinedMain = checkJoinedThreadStack();
         if (event instanceof EventCustom) {
-            for (IEventListener macro : runner.eventRegistry.getListeners(((EventCustom) event).eventName)) {
-                macro.trigger(event);
+            String eventName = ((EventCustom) event).eventName;
+            for (IEventListener macro : runner.eventRegistry.getListenerSnapshot(eventName)) {
+                triggerListener(event, eventName, macro, false, joinedMain, profiler);
             }
 
-            if (!runner.config.getOptions(CoreConfigV2.class).anythingIgnored.contains(((EventCustom) event).eventName)) {
-                for (IEventListener macro : runner.eventRegistry.getListeners("ANYTHING")) {
-                    if (macro.joined() && event.joinable()) {
-                        runJoinedEventListener(event, joinedMain, macro);
-                    } else {
-                        macro.trigger(event);
-                    }
+            IEventListener[] anything = runner.eventRegistry.getListenerSnapshot(BaseEventRegistry.ANYTHING_ID);
+            if (anything.length > 0 && !runner.config.getOptions(CoreConfigV2.class).anythingIgnored.contains(eventName)) {
+                for (IEventListener macro : anything) {
+                    triggerListener(event, "ANYTHING", macro, macro.joined() && event.joinable(), joinedMain, profiler);
                 }
             }
         } else {
-            String eventName = event.getEventName();
-            for (IEventListener macro : runner.eventRegistry.getListeners(eventName)) {
-                if (macro.joined() && runner.eventRegistry.joinableEvents.contains(eventName)) {
-                    runJoinedEventListener(event, joinedMain, macro);
-                } else {
-                    macro.trigger(event);
-                }
+            EventMeta meta = EventMeta.require(event.getClass());
+            String eventName = meta.name;
+            Object indexKey = event instanceof IndexedEvent ? ((IndexedEvent) event).getIndexKey() : null;
+            for (IEventListener macro : runner.eventRegistry.getListenerSnapshot(meta.id, indexKey)) {
+                triggerListener(event, eventName, macro, macro.joined() && meta.joinable, joinedMain, profiler);
             }
 
-            if (!runner.config.getOptions(CoreConfigV2.class).anythingIgnored.contains(eventName)) {
-                for (IEventListener macro : runner.eventRegistry.getListeners("ANYTHING")) {
-                    if (macro.joined() && runner.eventRegistry.joinableEvents.contains(eventName)) {
-                        runJoinedEventListener(event, joinedMain, macro);
-                    } else {
-                        macro.trigger(event);
-                    }
+            IEventListener[] anything = runner.eventRegistry.getListenerSnapshot(BaseEventRegistry.ANYTHING_ID);
+            if (anything.length > 0 && !runner.config.getOptions(CoreConfigV2.class).anythingIgnored.contains(eventName)) {
+                for (IEventListener macro : anything) {
+                    triggerListener(event, "ANYTHING", macro, macro.joined() && meta.joinable, joinedMain, profiler);
                 }
             }
         }
     }
 
+    private void triggerListener(BaseEvent event, String eventName, IEventListener macro, boolean joined, boolean joinedMain, @Nullable DispatchProfiler profiler) {
+        if (profiler == null) {
+            if (joined) {
+                runJoinedEventListener(event, joinedMain, macro);
+            } else {
+                macro.trigger(event);
+            }
+            return;
+        }
+        DispatchProfiler.ListenerStats stats = profiler.listener(eventName, macro);
+        if (joined) {
+            runJoinedEventListener(event, joinedMain, macro, stats);
+        } else {
+            long start = System.nanoTime();
+            try {
+                macro.trigger(event);
+            } finally {
+                stats.recordTrigger(System.nanoTime() - start);
+            }
+        }
+    }
+
     protected void runJoinedEventListener(BaseEvent event, boolean joinedMain, IEventListener macroListener) {
+        runJoinedEventListener(event, joinedMain, macroListener, null);
+    }
+
+    /**
+     * @param stats where to record trigger and blocked time, {@code null} while the profiler is disabled.
+     * @since 2.0.1
+     */
+    protected void runJoinedEventListener(BaseEvent event, boolean joinedMain, IEventListener macroListener, @Nullable DispatchProfiler.ListenerStats stats) {
         if (macroListener instanceof FJsMacros.ScriptEventListener) {
             BaseScriptContext<?> ctx = ((FJsMacros.ScriptEventListener) macroListener).getCtx();
             if (ctx != null && ctx.getBoundThreads().contains(Thread.currentThread()) && !ctx.isMultiThreaded()) {
                 throw new IllegalThreadStateException("Cannot join " + macroListener + " on same context as it's creation.");
             }
         }
+        long start = stats == null ? 0 : System.nanoTime();
         EventContainer<?> t = macroListener.trigger(event);
+        if (stats != null) {
+            long triggered = System.nanoTime();
+            stats.recordTrigger(triggered - start);
+            start = triggered;
+        }
         if (t == null) {
             return;
         }
@@ -153,6 +202,10 @@ public abstract class BaseProfile {
             t.awaitLock(() -> joinedThreadStack.remove(t.getLockThread()));
         } catch (InterruptedException ignored) {
             joinedThreadStack.remove(t.getLockThread());
+        } finally {
+            if (stats != null) {
+                stats.blocked.record(System.nanoTime() - start);
+            }
         }
     }
 
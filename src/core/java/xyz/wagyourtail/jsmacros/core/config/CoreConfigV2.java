@@ -25,6 +25,21 @@ public class CoreConfigV2 {
             "SendPacket"
     ));
 
+    @Option(translationKey = "jsmacros.threadpoolcoresize", group = {"jsmacros.settings.general", "jsmacros.settings.threads"}, setter = "setThreadPoolCoreSize")
+    public int threadPoolCoreSize = Runtime.getRuntime().availableProcessors();
+
+    @Option(translationKey = "jsmacros.threadpoolmaxsize", group = {"jsmacros.settings.general", "jsmacros.settings.threads"}, setter = "setThreadPoolMaxSize")
+    public int threadPoolMaxSize = Runtime.getRuntime().availableProcessors() * 3;
+
+    @Option(translationKey = "jsmacros.virtualthreads", group = {"jsmacros.settings.general", "jsmacros.settings.threads"}, setter = "setVirtualThreads")
+    public boolean virtualThreads = false;
+
+    @Option(translationKey = "jsmacros.dispatchprofiler", group = "jsmacros.settings.general", setter = "setDispatchProfiler")
+    public boolean dispatchProfiler = false;
+
+    @Option(translationKey = "jsmacros.contextleakthreshold", group = "jsmacros.settings.general")
+    public long contextLeakThreshold = 600;
+
     @Option(translationKey = "jsmacros.profiles", group = {"jsmacros.settings.profile", "jsmacros.settings.profile.list"}, type = @OptionType("profile"))
     public Map<String, List<ScriptTrigger>> profiles = new HashMap<>();
 
@@ -46,6 +61,26 @@ public class CoreConfigV2 {
         Core.getInstance().profile.loadOrCreateProfile(pname);
     }
 
+    public void setThreadPoolCoreSize(int size) {
+        threadPoolCoreSize = size;
+        Core.getInstance().threadPool.setCoreSize(size);
+    }
+
+    public void setThreadPoolMaxSize(int size) {
+        threadPoolMaxSize = size;
+        Core.getInstance().threadPool.setMaxSize(size);
+    }
+
+    public void setVirtualThreads(boolean value) {
+        virtualThreads = value;
+        Core.getInstance().threadPool.setVirtualThreads(value);
+    }
+
+    public void setDispatchProfiler(boolean value) {
+        dispatchProfiler = value;
+        Core.getInstance().profiler.setEnabled(value);
+    }
+
     public List<String> profileOptions() {
         return new ArrayList<>(profiles.keySet());
     }
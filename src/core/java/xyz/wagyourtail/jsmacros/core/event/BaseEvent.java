@@ -8,11 +8,11 @@ public class BaseEvent {
     protected boolean cancelled;
 
     public boolean cancellable() {
-        return this.getClass().getAnnotation(Event.class).cancellable();
+        return EventMeta.require(this.getClass()).cancellable;
     }
 
     public boolean joinable() {
-        return cancellable() || this.getClass().getAnnotation(Event.class).joinable();
+        return cancellable() || EventMeta.require(this.getClass()).joinable;
     }
 
     /**
@@ -31,7 +31,7 @@ public class BaseEvent {
     }
 
     public String getEventName() {
-        return this.getClass().getAnnotation(Event.class).value();
+        return EventMeta.require(this.getClass()).name;
     }
 
     public void trigger() {
@@ -2,7 +2,9 @@ package xyz.wagyourtail.jsmacros.core.event;
 
 import com.google.common.collect.ImmutableSet;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 import xyz.wagyourtail.jsmacros.core.Core;
+import xyz.wagyourtail.jsmacros.core.config.CoreConfigV2;
 import xyz.wagyourtail.jsmacros.core.config.ScriptTrigger;
 import xyz.wagyourtail.jsmacros.core.library.impl.FJsMacros;
 
@@ -13,8 +15,21 @@ import java.util.*;
  * @since 1.2.7
  */
 public abstract class BaseEventRegistry {
+    private static final IEventListener[] NO_LISTENERS = new IEventListener[0];
+    /**
+     * the {@link EventMeta#id} of {@code ANYTHING}.
+     *
+     * @since 2.0.1
+     */
+    public static final int ANYTHING_ID = EventMeta.idOf("ANYTHING");
+
     protected final Core runner;
     protected final Map<String, Set<IEventListener>> listeners = new LinkedHashMap<>();
+    /**
+     * copy-on-write snapshots of {@link #listeners} indexed by {@link EventMeta#id}, replaced whenever an event's
+     * listeners change so that dispatch can read them without locking, copying or hashing the event name.
+     */
+    private volatile ListenerSnapshot[] listenerSnapshots = new ListenerSnapshot[0];
     public final Map<String, String> oldEvents = new LinkedHashMap<>();
     public final Set<String> events = new LinkedHashSet<>();
     public final Set<String> cancellableEvents = new HashSet<>();
@@ -29,6 +44,9 @@ public abstract class BaseEventRegistry {
         for (Set<IEventListener> value : listeners.values()) {
             value.removeIf(listener -> !(listener instanceof FJsMacros.ScriptEventListener));
         }
+        for (String event : listeners.keySet()) {
+            updateSnapshot(event);
+        }
     }
 
     /**
@@ -44,7 +62,9 @@ public abstract class BaseEventRegistry {
      */
     public synchronized void addListener(String event, IEventListener listener) {
         listeners.putIfAbsent(event, new LinkedHashSet<>());
-        listeners.get(event).add(listener);
+        if (listeners.get(event).add(listener)) {
+            updateSnapshot(event);
+        }
     }
 
     /**
@@ -55,7 +75,11 @@ public abstract class BaseEventRegistry {
      */
     public synchronized boolean removeListener(String event, IEventListener listener) {
         listeners.putIfAbsent(event, new LinkedHashSet<>());
-        return listeners.get(event).remove(listener);
+        if (listeners.get(event).remove(listener)) {
+            updateSnapshot(event);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -65,9 +89,10 @@ public abstract class BaseEventRegistry {
      */
     @Deprecated
     public synchronized boolean removeListener(IEventListener listener) {
-        for (Set<IEventListener> listeners : listeners.values()) {
-            if (listeners.contains(listener)) {
-                return listeners.remove(listener);
+        for (Map.Entry<String, Set<IEventListener>> entry : listeners.entrySet()) {
+            if (entry.getValue().remove(listener)) {
+                updateSnapshot(entry.getKey());
+                return true;
             }
         }
         return false;
@@ -93,8 +118,161 @@ public abstract class BaseEventRegistry {
      * @return
      * @since 1.2.3
      */
-    public synchronized Set<IEventListener> getListeners(String key) {
-        return ImmutableSet.copyOf(listeners.computeIfAbsent(key, (k) -> new LinkedHashSet<>()));
+    public Set<IEventListener> getListeners(String key) {
+        return ImmutableSet.copyOf(getListenerSnapshot(key));
+    }
+
+    /**
+     * lock-free view of the listeners for an event, this array is shared and must not be modified.
+     *
+     * @param key
+     * @return
+     * @since 2.0.1
+     */
+    public IEventListener[] getListenerSnapshot(String key) {
+        ListenerSnapshot snapshot = snapshot(EventMeta.findId(key));
+        return snapshot == null ? NO_LISTENERS : snapshot.all;
+    }
+
+    /**
+     * like {@link #getListenerSnapshot(String)} without looking up the event's id by name.
+     *
+     * @param eventId the event's {@link EventMeta#id}
+     * @return
+     * @since 2.0.1
+     */
+    public IEventListener[] getListenerSnapshot(int eventId) {
+        ListenerSnapshot snapshot = snapshot(eventId);
+        return snapshot == null ? NO_LISTENERS : snapshot.all;
+    }
+
+    /**
+     * like {@link #getListenerSnapshot(String)} but without the listeners whose {@link EventFilterer.Indexed} filterer
+     * is limited to a different index key, those would reject the event anyway.
+     *
+     * @param key
+     * @param indexKey the event's {@link IndexedEvent#getIndexKey()}, {@code null} for all listeners.
+     * @return
+     * @since 2.0.1
+     */
+    public IEventListener[] getListenerSnapshot(String key, @Nullable Object indexKey) {
+        return getListenerSnapshot(EventMeta.findId(key), indexKey);
+    }
+
+    /**
+     * @param eventId  the event's {@link EventMeta#id}
+     * @param indexKey the event's {@link IndexedEvent#getIndexKey()}, {@code null} for all listeners.
+     * @return
+     * @see #getListenerSnapshot(String, Object)
+     * @since 2.0.1
+     */
+    public IEventListener[] getListenerSnapshot(int eventId, @Nullable Object indexKey) {
+        if (indexKey == null) {
+            return getListenerSnapshot(eventId);
+        }
+        ListenerSnapshot snapshot = indexedSnapshot(eventId);
+        return snapshot == null ? NO_LISTENERS : snapshot.forKey(indexKey);
+    }
+
+    /**
+     * cheap check for whether triggering an event would reach any listener, either directly or through
+     * {@code ANYTHING}, so that hot event sources can skip building the event object entirely.
+     *
+     * @param eventName
+     * @return
+     * @since 2.0.1
+     */
+    public boolean hasListeners(String eventName) {
+        if (snapshot(EventMeta.findId(eventName)) != null) {
+            return true;
+        }
+        return hasAnythingListeners(eventName);
+    }
+
+    /**
+     * like {@link #hasListeners(String)} but only counts listeners whose filterer could accept an event with this index key.
+     *
+     * @param eventName
+     * @param indexKey the key the event would have, see {@link IndexedEvent}
+     * @return
+     * @since 2.0.1
+     */
+    public boolean hasListeners(String eventName, Object indexKey) {
+        return hasListeners(EventMeta.findId(eventName), eventName, indexKey);
+    }
+
+    private boolean hasListeners(int eventId, String eventName, Object indexKey) {
+        ListenerSnapshot snapshot = indexedSnapshot(eventId);
+        if (snapshot != null && snapshot.forKey(indexKey).length > 0) {
+            return true;
+        }
+        return hasAnythingListeners(eventName);
+    }
+
+    private boolean hasAnythingListeners(String eventName) {
+        return snapshot(ANYTHING_ID) != null && !runner.config.getOptions(CoreConfigV2.class).anythingIgnored.contains(eventName);
+    }
+
+    @Nullable
+    private ListenerSnapshot snapshot(int eventId) {
+        ListenerSnapshot[] snapshots = listenerSnapshots;
+        return eventId >= 0 && eventId < snapshots.length ? snapshots[eventId] : null;
+    }
+
+    /**
+     * like {@link #snapshot(int)}, but re-indexes the event first if a filterer's index key changed since the snapshot
+     * was made. scripts can assign filterer fields directly, so keys are compared on use instead of relying on setters.
+     */
+    @Nullable
+    private ListenerSnapshot indexedSnapshot(int eventId) {
+        ListenerSnapshot snapshot = snapshot(eventId);
+        if (snapshot == null || !snapshot.isStale()) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (snapshot(eventId) == snapshot) {
+                updateSnapshot(snapshot.event);
+            }
+        }
+        return snapshot(eventId);
+    }
+
+    /**
+     * @param clazz an event class with an {@link Event} annotation
+     * @return
+     * @see #hasListeners(String)
+     * @since 2.0.1
+     */
+    public boolean hasListeners(Class<? extends BaseEvent> clazz) {
+        EventMeta meta = EventMeta.of(clazz);
+        // classes without metadata are assumed to be active so nothing gets silently dropped.
+        return meta == null || snapshot(meta.id) != null || hasAnythingListeners(meta.name);
+    }
+
+    /**
+     * @param clazz    an event class with an {@link Event} annotation
+     * @param indexKey the key the event would have, see {@link IndexedEvent}
+     * @return
+     * @see #hasListeners(String, Object)
+     * @since 2.0.1
+     */
+    public boolean hasListeners(Class<? extends BaseEvent> clazz, Object indexKey) {
+        EventMeta meta = EventMeta.of(clazz);
+        return meta == null || hasListeners(meta.id, meta.name, indexKey);
+    }
+
+    /**
+     * must be called while holding this registry's monitor after the listeners for {@code event} change.
+     *
+     * @param event
+     * @since 2.0.1
+     */
+    protected void updateSnapshot(String event) {
+        Set<IEventListener> current = listeners.get(event);
+        int id = EventMeta.idOf(event);
+        ListenerSnapshot[] snapshots = Arrays.copyOf(listenerSnapshots, Math.max(listenerSnapshots.length, id + 1));
+        snapshots[id] = current == null || current.isEmpty() ? null : new ListenerSnapshot(event, current.toArray(NO_LISTENERS));
+        listenerSnapshots = snapshots;
     }
 
     /**
@@ -134,26 +312,94 @@ public abstract class BaseEventRegistry {
 
 
     public synchronized void addEvent(Class<? extends BaseEvent> clazz) {
-        if (clazz.isAnnotationPresent(Event.class)) {
-            Event e = clazz.getAnnotation(Event.class);
-            if (!e.oldName().isEmpty()) {
-                oldEvents.put(e.oldName(), e.value());
+        EventMeta e = EventMeta.of(clazz);
+        if (e != null) {
+            if (e.oldName != null) {
+                oldEvents.put(e.oldName, e.name);
             }
-            oldEvents.put(clazz.getSimpleName(), e.value());
-            events.add(e.value());
-            if (e.cancellable()) {
-                cancellableEvents.add(e.value());
-                joinableEvents.add(e.value());
+            oldEvents.put(clazz.getSimpleName(), e.name);
+            events.add(e.name);
+            if (e.cancellable) {
+                cancellableEvents.add(e.name);
             }
-            if (e.joinable()) {
-                joinableEvents.add(e.value());
+            if (e.joinable) {
+                joinableEvents.add(e.name);
             }
-            if (e.filterer() != EventFilterer.class) {
-                filterableEvents.put(e.value(), e.filterer());
+            if (e.filterer != null) {
+                filterableEvents.put(e.name, e.filterer);
             }
         } else {
             throw new RuntimeException("Tried to add event that doesn't have proper event annotation, " + clazz.getSimpleName());
         }
     }
 
+    private static final class ListenerSnapshot {
+        final String event;
+        final IEventListener[] all;
+        // listeners that aren't limited to one index key.
+        final IEventListener[] unindexed;
+        // per index key, the unindexed listeners plus the ones limited to that key, in registration order.
+        final Map<Object, IEventListener[]> byKey;
+        // the indexed filterers and the keys they had when this snapshot was made.
+        private final EventFilterer.Indexed[] indexed;
+        private final Object[] indexedKeys;
+
+        ListenerSnapshot(String event, IEventListener[] all) {
+            this.event = event;
+            this.all = all;
+            Object[] keys = new Object[all.length];
+            Set<Object> distinct = new LinkedHashSet<>();
+            List<EventFilterer.Indexed> indexed = new ArrayList<>();
+            List<Object> indexedKeys = new ArrayList<>();
+            for (int i = 0; i < all.length; i++) {
+                EventFilterer filterer = all[i].getFilterer();
+                if (filterer instanceof EventFilterer.Indexed) {
+                    keys[i] = ((EventFilterer.Indexed) filterer).getIndexKey();
+                    indexed.add((EventFilterer.Indexed) filterer);
+                    indexedKeys.add(keys[i]);
+                    if (keys[i] != null) {
+                        distinct.add(keys[i]);
+                    }
+                }
+            }
+            this.indexed = indexed.toArray(new EventFilterer.Indexed[0]);
+            this.indexedKeys = indexedKeys.toArray();
+            if (distinct.isEmpty()) {
+                this.unindexed = all;
+                this.byKey = Collections.emptyMap();
+                return;
+            }
+            this.unindexed = select(all, keys, null);
+            Map<Object, IEventListener[]> byKey = new HashMap<>();
+            for (Object key : distinct) {
+                byKey.put(key, select(all, keys, key));
+            }
+            this.byKey = byKey;
+        }
+
+        private static IEventListener[] select(IEventListener[] all, Object[] keys, @Nullable Object key) {
+            List<IEventListener> selected = new ArrayList<>(all.length);
+            for (int i = 0; i < all.length; i++) {
+                if (keys[i] == null || keys[i].equals(key)) {
+                    selected.add(all[i]);
+                }
+            }
+            return selected.toArray(NO_LISTENERS);
+        }
+
+        IEventListener[] forKey(Object key) {
+            return byKey.getOrDefault(key, unindexed);
+        }
+
+        boolean isStale() {
+            for (int i = 0; i < indexed.length; i++) {
+                if (!Objects.equals(indexed[i].getIndexKey(), indexedKeys[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
 }
@@ -1,5 +1,6 @@
 package xyz.wagyourtail.jsmacros.core.event;
 
+import org.jetbrains.annotations.Nullable;
 import xyz.wagyourtail.doclet.DocletReplaceParams;
 
 /**
@@ -14,6 +15,23 @@ public interface EventFilterer {
 
     boolean test(BaseEvent event);
 
+    /**
+     * a filterer that only lets through events with one specific {@link IndexedEvent#getIndexKey() index key},
+     * so the event registry can skip it for every other key without calling {@link #test(BaseEvent)}.
+     * the key may change at any time, the registry compares it with the key it indexed the listener under before using the index.
+     *
+     * @since 2.0.1
+     */
+    interface Indexed extends EventFilterer {
+
+        /**
+         * @return the index key an event must have to pass this filterer, or {@code null} if it isn't limited to one key.
+         */
+        @Nullable
+        Object getIndexKey();
+
+    }
+
     interface Compound extends EventFilterer {
 
         default void checkCyclicRef(Compound base) {
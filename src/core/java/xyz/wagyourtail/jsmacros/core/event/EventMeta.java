@@ -0,0 +1,97 @@
+package xyz.wagyourtail.jsmacros.core.event;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * the {@link Event} annotation of an event class, read once per class instead of on every call.
+ * <p>
+ * every event name also gets a small numeric id, so listener lookups on dispatch can index an array
+ * instead of hashing the name.
+ *
+ * @since 2.0.1
+ */
+public final class EventMeta {
+    private static final AtomicInteger nextId = new AtomicInteger();
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static final ClassValue<EventMeta> meta = new ClassValue<>() {
+        @Override
+        protected EventMeta computeValue(Class<?> type) {
+            Event e = type.getAnnotation(Event.class);
+            return e == null ? null : new EventMeta(e);
+        }
+    };
+
+    public final int id;
+    public final String name;
+    @Nullable
+    public final String oldName;
+    public final boolean cancellable;
+    /**
+     * also true for cancellable events.
+     */
+    public final boolean joinable;
+    @Nullable
+    public final Class<? extends EventFilterer> filterer;
+
+    private EventMeta(Event e) {
+        this.id = idOf(e.value());
+        this.name = e.value();
+        this.oldName = e.oldName().isEmpty() ? null : e.oldName();
+        this.cancellable = e.cancellable();
+        this.joinable = e.cancellable() || e.joinable();
+        this.filterer = e.filterer() == EventFilterer.class ? null : e.filterer();
+    }
+
+    /**
+     * @param clazz
+     * @return the metadata for {@code clazz}, or {@code null} if it doesn't have an {@link Event} annotation.
+     */
+    @Nullable
+    public static EventMeta of(Class<?> clazz) {
+        return meta.get(clazz);
+    }
+
+    /**
+     * @param clazz
+     * @return the metadata for {@code clazz}.
+     * @throws IllegalArgumentException if it doesn't have an {@link Event} annotation.
+     */
+    public static EventMeta require(Class<?> clazz) {
+        EventMeta m = meta.get(clazz);
+        if (m == null) {
+            throw new IllegalArgumentException("Event class doesn't have proper event annotation, " + clazz.getSimpleName());
+        }
+        return m;
+    }
+
+    /**
+     * @param eventName
+     * @return the id of this event name, assigning a new one if it hasn't been seen yet.
+     */
+    public static int idOf(String eventName) {
+        Integer id = ids.get(eventName);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(eventName, k -> nextId.getAndIncrement());
+    }
+
+    /**
+     * @param eventName
+     * @return the id of this event name, or {@code -1} if it doesn't have one yet.
+     */
+    public static int findId(String eventName) {
+        Integer id = ids.get(eventName);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EventMeta:{\"id\": %d, \"name\": \"%s\", \"cancellable\": %s, \"joinable\": %s}", id, name, cancellable, joinable);
+    }
+
+}
@@ -1,5 +1,6 @@
 package xyz.wagyourtail.jsmacros.core.event;
 
+import org.jetbrains.annotations.Nullable;
 import xyz.wagyourtail.jsmacros.core.Core;
 import xyz.wagyourtail.jsmacros.core.language.EventContainer;
 
@@ -20,6 +21,17 @@ public interface IEventListener {
 
     EventContainer<?> trigger(BaseEvent event);
 
+    /**
+     * used by the event registry to index this listener, see {@link EventFilterer.Indexed}.
+     *
+     * @return the filterer this listener tests events with before doing anything else.
+     * @since 2.0.1
+     */
+    @Nullable
+    default EventFilterer getFilterer() {
+        return null;
+    }
+
     /**
      * Used for self unregistering events.
      *
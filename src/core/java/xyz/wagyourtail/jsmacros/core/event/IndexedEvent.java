@@ -0,0 +1,16 @@
+package xyz.wagyourtail.jsmacros.core.event;
+
+/**
+ * an event with a discriminating key, such as a packet type or a block, that {@link EventFilterer.Indexed}
+ * filterers match on. listeners are looked up by this key so dispatch doesn't have to test every filterer.
+ *
+ * @since 2.0.1
+ */
+public interface IndexedEvent {
+
+    /**
+     * @return the key, must be consistent with {@link EventFilterer.Indexed#getIndexKey()} of this event's filterer.
+     */
+    Object getIndexKey();
+
+}
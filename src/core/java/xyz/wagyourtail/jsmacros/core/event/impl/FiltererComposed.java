@@ -5,12 +5,13 @@ import xyz.wagyourtail.jsmacros.core.event.EventFilterer;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author aMelonRind
  * @since 1.9.1
  */
-public class FiltererComposed implements EventFilterer.Compound {
+public class FiltererComposed implements EventFilterer.Compound, EventFilterer.Indexed {
     private final LinkedList<List<EventFilterer>> components = new LinkedList<>();
 
     public FiltererComposed(EventFilterer initial) {
@@ -39,6 +40,24 @@ public class FiltererComposed implements EventFilterer.Compound {
         return false;
     }
 
+    /**
+     * @return the index key shared by every or branch, {@code null} if the branches don't agree on one.
+     * @since 2.0.1
+     */
+    @Override
+    public Object getIndexKey() {
+        Object key = null;
+        for (List<EventFilterer> c : components) {
+            Object branchKey = null;
+            for (EventFilterer f : c) {
+                if (f instanceof Indexed i && (branchKey = i.getIndexKey()) != null) break;
+            }
+            if (branchKey == null || (key != null && !Objects.equals(key, branchKey))) return null;
+            key = branchKey;
+        }
+        return key;
+    }
+
     /**
      * @param filterer the filterer to compose
      * @return self for chaining
@@ -0,0 +1,113 @@
+package xyz.wagyourtail.jsmacros.core.extensions;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import xyz.wagyourtail.jsmacros.core.Core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * remembers what was extracted to the extension dependencies folder, so jars that haven't changed since
+ * the last start aren't read and written again.
+ *
+ * @since 2.0.1
+ */
+class DependencyCache {
+    private static final Gson gson = new Gson();
+    private static final String FILE_NAME = "checksums.json";
+
+    private final Path folder;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty = false;
+
+    DependencyCache(Path folder) {
+        this.folder = folder;
+        Path file = folder.resolve(FILE_NAME);
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                Map<String, Entry> loaded = gson.fromJson(reader, new TypeToken<Map<String, Entry>>() {}.getType());
+                if (loaded != null) {
+                    entries.putAll(loaded);
+                }
+            } catch (Exception e) {
+                // rebuilt on this start.
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * copy {@code lib} into the dependencies folder, unless the copy from last time is still current.
+     *
+     * @return the extracted file.
+     */
+    Path extract(URL lib) throws IOException {
+        String name = lib.getPath().substring(lib.getPath().lastIndexOf('/') + 1);
+        Path path = folder.resolve(name);
+        URLConnection connection = lib.openConnection();
+        long lastModified = connection.getLastModified();
+        long length = connection.getContentLengthLong();
+        Entry entry = entries.get(name);
+        boolean exists = Files.isRegularFile(path);
+        if (entry != null && exists && lastModified != 0 && lib.toString().equals(entry.source)
+                && entry.lastModified == lastModified && entry.length == length && entry.size == Files.size(path)) {
+            return path;
+        }
+
+        byte[] bytes;
+        try (InputStream stream = connection.getInputStream()) {
+            bytes = stream.readAllBytes();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if (!(entry != null && exists && entry.crc == crc.getValue() && entry.size == bytes.length && Files.size(path) == bytes.length)) {
+            Files.write(path, bytes, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE);
+            System.out.println("Extracted dependency " + path);
+        }
+        entries.put(name, new Entry(lib.toString(), lastModified, length, crc.getValue(), bytes.length));
+        dirty = true;
+        return path;
+    }
+
+    void save() {
+        if (!dirty) {
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(folder.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+            gson.toJson(entries, writer);
+            dirty = false;
+        } catch (IOException e) {
+            Core.getInstance().profile.LOGGER.error("Failed to save extension dependency checksums", e);
+        }
+    }
+
+    private static final class Entry {
+        String source;
+        long lastModified;
+        long length;
+        long crc;
+        long size;
+
+        Entry(String source, long lastModified, long length, long crc, long size) {
+            this.source = source;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.crc = crc;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -7,13 +7,17 @@ import xyz.wagyourtail.jsmacros.core.library.BaseLibrary;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -28,7 +32,11 @@ public class ExtensionLoader {
 
     private LanguageExtension highestPriorityExtension;
 
-    private boolean loadingDone;
+    private volatile boolean loadingDone;
+
+    private CompletableFuture<Prepared> prepareFuture;
+    private ExecutorService warmupExecutor;
+    private final StartupReport startupReport = new StartupReport();
 
     private final Path extPath;
 
@@ -39,7 +47,7 @@ public class ExtensionLoader {
 
     public boolean isExtensionLoaded(String name) {
         if (notLoaded()) {
-            loadExtensions();
+            awaitLoad();
         }
         return extensions.stream().anyMatch(e -> e.getExtensionName().equals(name));
     }
@@ -50,7 +58,7 @@ public class ExtensionLoader {
 
     public LanguageExtension getHighestPriorityExtension() {
         if (notLoaded()) {
-            loadExtensions();
+            awaitLoad();
         }
         if (highestPriorityExtension == null) {
             highestPriorityExtension = languageExtensions.stream().max(Comparator.comparingInt(LanguageExtension::getPriority)).orElse(null);
@@ -60,28 +68,28 @@ public class ExtensionLoader {
 
     public Set<Extension> getAllExtensions() {
         if (notLoaded()) {
-            loadExtensions();
+            awaitLoad();
         }
         return extensions;
     }
 
     public Set<LanguageExtension> getAllLanguageExtensions() {
         if (notLoaded()) {
-            loadExtensions();
+            awaitLoad();
         }
         return languageExtensions;
     }
 
     public Set<LibraryExtension> getAllLibraryExtensions() {
         if (notLoaded()) {
-            loadExtensions();
+            awaitLoad();
         }
         return libraryExtensions;
     }
 
     public @Nullable LanguageExtension getExtensionForFile(File file) {
         if (notLoaded()) {
-            loadExtensions();
+            awaitLoad();
         }
         List<Pair<LanguageExtension.ExtMatch, LanguageExtension>> extensions = this.languageExtensions.stream().map(e -> new Pair<>(e.extensionMatch(file), e)).filter(p -> p.getT().isMatch()).collect(Collectors.toList());
         if (extensions.size() > 1) {
@@ -100,16 +108,135 @@ public class ExtensionLoader {
 
     public Extension getExtensionForName(String extName) {
         if (notLoaded()) {
-            loadExtensions();
+            awaitLoad();
         }
         return extensions.stream().filter(e -> e.getExtensionName().equals(extName)).findFirst().orElse(null);
     }
 
+    /**
+     * extract the extensions and load their classes on a background thread.
+     * initializing them and registering their libraries is left to {@link #awaitLoad()}, on the thread that calls it,
+     * since that touches the config and library registry.
+     *
+     * @return completes when the background part is done.
+     * @since 2.0.1
+     */
+    public synchronized CompletableFuture<Void> loadExtensionsAsync() {
+        if (prepareFuture == null && !loadingDone) {
+            prepareFuture = CompletableFuture.supplyAsync(this::prepareExtensions, r -> {
+                Thread t = new Thread(r, "JsMacros Extension Loader");
+                t.setDaemon(true);
+                t.start();
+            });
+        }
+        return prepareFuture == null ? CompletableFuture.completedFuture(null) : prepareFuture.thenAccept(p -> {});
+    }
+
+    /**
+     * wait for extensions to be loaded, loading them on this thread if that hasn't started yet.
+     * extensions are initialized on the calling thread.
+     *
+     * @since 2.0.1
+     */
+    public void awaitLoad() {
+        if (notLoaded()) {
+            loadExtensions();
+        }
+        if (classLoader != null && Thread.currentThread().getContextClassLoader() != classLoader) {
+            Thread.currentThread().setContextClassLoader(classLoader);
+        }
+    }
+
+    /**
+     * @since 2.0.1
+     */
+    public StartupReport getStartupReport() {
+        return startupReport;
+    }
+
+    /**
+     * run a language warm up off the startup path, its time is added to the {@link #getStartupReport() startup report}.
+     *
+     * @param name
+     * @param task
+     * @since 2.0.1
+     */
+    public void scheduleWarmup(String name, Runnable task) {
+        ExecutorService executor;
+        synchronized (this) {
+            if (warmupExecutor == null) {
+                ClassLoader loader = classLoader;
+                warmupExecutor = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "JsMacros Language Warmup");
+                    t.setDaemon(true);
+                    t.setContextClassLoader(loader);
+                    return t;
+                });
+            }
+            executor = warmupExecutor;
+        }
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                core.profile.logError(e);
+            } finally {
+                startupReport.record("warmup " + name, System.nanoTime() - start);
+            }
+        });
+    }
+
+    private <T> T phase(String name, Supplier<T> phase) {
+        long start = System.nanoTime();
+        try {
+            return phase.get();
+        } finally {
+            startupReport.record(name, System.nanoTime() - start);
+        }
+    }
+
+    private void phase(String name, Runnable phase) {
+        phase(name, () -> {
+            phase.run();
+            return null;
+        });
+    }
+
     public synchronized void loadExtensions() {
-        if (classLoader != null) {
-            System.err.println("Extensions already loaded");
+        if (loadingDone) {
             return;
         }
+        Prepared prepared = null;
+        if (prepareFuture != null) {
+            try {
+                prepared = prepareFuture.join();
+            } catch (CompletionException | CancellationException e) {
+                core.profile.LOGGER.error("Failed to load extensions in the background, retrying", e);
+            } finally {
+                prepareFuture = null;
+            }
+        }
+        if (prepared == null) {
+            prepared = prepareExtensions();
+        }
+        try {
+            initExtensions(prepared);
+        } catch (RuntimeException e) {
+            // start over from a clean state if this is called again.
+            extensions.clear();
+            languageExtensions.clear();
+            libraryExtensions.clear();
+            this.classLoader = null;
+            throw e;
+        }
+    }
+
+    /**
+     * extract and class load the extensions, only touches local state so it can run on any thread.
+     */
+    private Prepared prepareExtensions() {
+        startupReport.start();
         if (!Files.exists(extPath)) {
             try {
                 Files.createDirectories(extPath);
@@ -131,7 +258,7 @@ public class ExtensionLoader {
             throw new RuntimeException(e);
         }
 
-        classLoader = new ExtensionClassLoader(urls);
+        ExtensionClassLoader classLoader = new ExtensionClassLoader(urls);
 
         // extract lib to dependencies folder
         Path dependenciesPath = extPath.resolve("tmp");
@@ -140,75 +267,99 @@ public class ExtensionLoader {
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        DependencyCache dependencyCache = new DependencyCache(dependenciesPath);
 
         // add internal extensions
-        Set<URL> internalExtensions = Extension.getDependenciesInternal(ExtensionLoader.class, "jsmacros.extension.json");
-        for (URL lib : internalExtensions) {
-            System.out.println("Adding internal extension: " + lib);
-            // copy resource to dependencies folder
-            Path path = dependenciesPath.resolve(lib.getPath().substring(lib.getPath().lastIndexOf('/') + 1));
-            try (InputStream stream = lib.openStream()) {
-                Files.write(path, stream.readAllBytes(), StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE);
-                System.out.println("Extracted dependency " + path);
-                classLoader.addURL(path.toUri().toURL());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        phase("extract internal extensions", () -> {
+            Set<URL> internalExtensions = Extension.getDependenciesInternal(ExtensionLoader.class, "jsmacros.extension.json");
+            for (URL path : extractAll(dependencyCache, internalExtensions)) {
+                classLoader.addURL(path);
             }
-        }
+        });
 
         // load extensions
-        extensions.addAll(ServiceLoader.load(Extension.class, classLoader)
-            .stream()
-            .map(ServiceLoader.Provider::get)
-            .collect(Collectors.toSet()));
+        Set<Extension> extensions = phase("load extension classes", () -> ServiceLoader.load(Extension.class, classLoader)
+                .stream()
+                .map(ServiceLoader.Provider::get)
+                .collect(Collectors.toSet()));
 
         System.out.println("Loaded " + extensions.size() + " extensions");
 
         // load extension deps
-        for (Extension extension : extensions) {
-            try {
-                Set<URL> deps = extension.getDependencies();
-                if (deps.isEmpty()) {
-                    System.out.println("No dependencies for extension: " + extension.getClass().getName());
-                }
-                for (URL lib : deps) {
-                    // copy resource to dependencies folder
-                    Path path = dependenciesPath.resolve(lib.getPath().substring(lib.getPath().lastIndexOf('/') + 1));
-                    try (InputStream stream = lib.openStream()) {
-                        Files.write(path, stream.readAllBytes(), StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE);
-                        System.out.println("Extracted dependency " + path);
-                        classLoader.addURL(path.toUri().toURL());
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
+        phase("extract extension dependencies", () -> {
+            Set<URL> deps = new LinkedHashSet<>();
+            for (Extension extension : extensions) {
+                try {
+                    Set<URL> extDeps = extension.getDependencies();
+                    if (extDeps.isEmpty()) {
+                        System.out.println("No dependencies for extension: " + extension.getClass().getName());
                     }
+                    deps.addAll(extDeps);
+                } catch (Exception e) {
+                    throw new RuntimeException("Failed to load extension dependencies for: " + extension.getExtensionName(), e);
                 }
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to load extension dependencies for: " + extension.getExtensionName(), e);
             }
-        }
+            for (URL path : extractAll(dependencyCache, deps)) {
+                classLoader.addURL(path);
+            }
+        });
+        dependencyCache.save();
+        return new Prepared(classLoader, extensions);
+    }
+
+    private void initExtensions(Prepared prepared) {
+        this.classLoader = prepared.classLoader;
+        this.extensions.addAll(prepared.extensions);
         Thread.currentThread().setContextClassLoader(classLoader);
-        for (Extension extension : extensions) {
-            try {
-                extension.init();
-                if (extension instanceof LibraryExtension libExt) {
-                    libraryExtensions.add(libExt);
-                    for (Class<? extends BaseLibrary> lib : libExt.getLibraries()) {
-                        core.libraryRegistry.addLibrary(lib);
+        phase("init extensions", () -> {
+            for (Extension extension : extensions) {
+                try {
+                    extension.init();
+                    if (extension instanceof LanguageExtension langExt) {
+                        languageExtensions.add(langExt);
                     }
+                } catch (Exception e) {
+                    throw new RuntimeException("Failed to load extension: " + extension.getExtensionName(), e);
                 }
-                if (extension instanceof LanguageExtension langExt) {
-                    languageExtensions.add(langExt);
+            }
+        });
+        phase("register libraries", () -> {
+            for (Extension extension : extensions) {
+                if (extension instanceof LibraryExtension libExt) {
+                    try {
+                        libraryExtensions.add(libExt);
+                        for (Class<? extends BaseLibrary> lib : libExt.getLibraries()) {
+                            core.libraryRegistry.addLibrary(lib);
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException("Failed to load extension: " + extension.getExtensionName(), e);
+                    }
                 }
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to load extension: " + extension.getExtensionName(), e);
             }
-        }
+        });
         loadingDone = true;
+        core.triggerCache.invalidateAll();
+        startupReport.finish();
+        core.profile.LOGGER.info(startupReport.toString());
+    }
+
+    // extracts in parallel, returns the extracted urls in the same order as given.
+    private static List<URL> extractAll(DependencyCache cache, Collection<URL> libs) {
+        return libs.parallelStream().map(lib -> {
+            try {
+                return cache.extract(lib).toUri().toURL();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).collect(Collectors.toList());
+    }
+
+    private record Prepared(ExtensionClassLoader classLoader, Set<Extension> extensions) {
     }
 
     public boolean isGuestObject(Object obj) {
         if (notLoaded()) {
-            loadExtensions();
+            awaitLoad();
         }
         return languageExtensions.stream().anyMatch(e -> e.isGuestObject(obj));
     }
@@ -0,0 +1,76 @@
+package xyz.wagyourtail.jsmacros.core.extensions;
+
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * how long each phase of loading extensions took, phases that run in the background are added as they finish.
+ *
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class StartupReport {
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private volatile long startTime;
+    private volatile long endTime;
+
+    @ApiStatus.Internal
+    public void start() {
+        startTime = System.currentTimeMillis();
+    }
+
+    @ApiStatus.Internal
+    public void finish() {
+        endTime = System.currentTimeMillis();
+    }
+
+    @ApiStatus.Internal
+    public synchronized void record(String phase, long nanos) {
+        phases.merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * @return time each phase took in milliseconds, in the order they finished.
+     */
+    public synchronized Map<String, Double> getPhases() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        phases.forEach((k, v) -> map.put(k, v / 1_000_000d));
+        return map;
+    }
+
+    /**
+     * @param phase
+     * @return time the phase took in milliseconds, or {@code -1} if it hasn't run.
+     */
+    public synchronized double getPhase(String phase) {
+        Long nanos = phases.get(phase);
+        return nanos == null ? -1 : nanos / 1_000_000d;
+    }
+
+    /**
+     * @return wall time of loading extensions in milliseconds, not counting background warm up, or {@code -1} if it hasn't finished.
+     */
+    public long getTotalTime() {
+        return endTime == 0 ? -1 : endTime - startTime;
+    }
+
+    public synchronized JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("totalMillis", getTotalTime());
+        JsonObject phaseJson = new JsonObject();
+        phases.forEach((k, v) -> phaseJson.addProperty(k, v / 1_000_000d));
+        json.add("phases", phaseJson);
+        return json;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("Extension startup: ").append(getTotalTime()).append("ms");
+        phases.forEach((k, v) -> sb.append(String.format("%n  %s: %.2fms", k, v / 1_000_000d)));
+        return sb.toString();
+    }
+
+}
@@ -11,6 +11,7 @@ import java.io.File;
 import java.nio.file.FileSystemException;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Language class for languages to be implemented on top of.
@@ -31,20 +32,30 @@ public abstract class BaseLanguage<U, T extends BaseScriptContext<U>> {
 
     public final EventContainer<T> trigger(ScriptTrigger macro, BaseEvent event, Runnable then,
                                            Consumer<Throwable> catcher) {
+        ScriptTrigger copy = macro.copy();
+        return trigger(new ResolvedTrigger(copy, ResolvedTrigger.resolveFile(runner, copy.scriptFile), this), macro, event, then, catcher);
+    }
+
+    /**
+     * @param resolved resolved from {@code macro}, for this language.
+     * @param macro    the original trigger, disabled if its file is missing.
+     * @since 2.0.1
+     */
+    public final EventContainer<T> trigger(ResolvedTrigger resolved, ScriptTrigger macro, BaseEvent event, Runnable then,
+                                           Consumer<Throwable> catcher) {
 
+        // scripts can get at their trigger, so every run gets a copy of its own.
         final ScriptTrigger staticMacro = macro.copy();
         final Thread ct = Thread.currentThread();
-        final File file = new File(runner.config.macroFolder, staticMacro.scriptFile);
+        final File file = resolved.file;
         EventContainer<T> ctx = new EventContainer<>(createContext(event, file));
+        final String threadName = event == null ? String.format("RunScript:{\"creator\":\"%s\"}", ct.getName()) : resolved.threadName;
+        ctx.getCtx().setDisplayName(threadName);
         runner.threadPool.runTask(() -> {
             Thread t = Thread.currentThread();
             preThread.run();
             try {
-                if (event == null) {
-                    t.setName(String.format("RunScript:{\"creator\":\"%s\"}", ct.getName()));
-                } else {
-                    t.setName(String.format("Script:{\"trigger\":\"%s\", \"event\":\"%s\", \"file\":\"%s\"}", staticMacro.triggerType, staticMacro.event, staticMacro.scriptFile));
-                }
+                t.setName(threadName);
                 if (file.exists() && file.isFile()) {
 
                     runner.addContext(ctx);
@@ -102,11 +113,13 @@ public abstract class BaseLanguage<U, T extends BaseScriptContext<U>> {
     public final EventContainer<T> trigger(String lang, String script, File fakeFile, BaseEvent event, Runnable then, Consumer<Throwable> catcher) {
         final Thread ct = Thread.currentThread();
         EventContainer<T> ctx = new EventContainer<>(createContext(event, fakeFile));
+        final String threadName = String.format("RunScript:{\"creator\":\"%s\", \"start\":\"%d\"}", ct.getName(), System.currentTimeMillis());
+        ctx.getCtx().setDisplayName(threadName);
         runner.threadPool.runTask(() -> {
             Thread t = Thread.currentThread();
             preThread.run();
             try {
-                t.setName(String.format("RunScript:{\"creator\":\"%s\", \"start\":\"%d\"}", ct.getName(), System.currentTimeMillis()));
+                t.setName(threadName);
 
                 runner.addContext(ctx);
 
@@ -157,6 +170,15 @@ public abstract class BaseLanguage<U, T extends BaseScriptContext<U>> {
         return runner.libraryRegistry.getPerExecLibraries(this, context);
     }
 
+    /**
+     * @param context
+     * @return suppliers for the per exec libraries, for languages that can bind them lazily.
+     * @since 2.0.1
+     */
+    public Map<String, Supplier<BaseLibrary>> retrieveLazyPerExecLibs(T context) {
+        return runner.libraryRegistry.getLazyPerExecLibraries(this, context);
+    }
+
     /**
      * run a script trigger/file with this.
      *
@@ -7,6 +7,7 @@ import xyz.wagyourtail.jsmacros.core.Core;
 import xyz.wagyourtail.jsmacros.core.event.BaseEvent;
 import xyz.wagyourtail.jsmacros.core.event.IEventListener;
 import xyz.wagyourtail.jsmacros.core.service.ServiceManager;
+import xyz.wagyourtail.jsmacros.core.threads.JsMacrosThreadPool;
 
 import java.io.File;
 import java.lang.ref.WeakReference;
@@ -35,8 +36,12 @@ public abstract class BaseScriptContext<T> {
      */
     protected T context = null;
     protected Thread mainThread = null;
+    // pooled threads are renamed once they're done, so the name is kept here for display.
+    private volatile String displayName = null;
 
     protected final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // last context bound to each thread that isn't pooled, pooled threads keep track of theirs themselves.
+    private static final Map<Thread, WeakReference<BaseScriptContext<?>>> boundByThread = Collections.synchronizedMap(new WeakHashMap<>());
 
     protected final Map<Thread, EventContainer<? extends BaseScriptContext<T>>> events = new ConcurrentHashMap<>();
 
@@ -109,6 +114,27 @@ public abstract class BaseScriptContext<T> {
         return mainThread;
     }
 
+    /**
+     * @return the name of the main thread when the script started, pooled threads get renamed for other tasks.
+     * @since 2.0.1
+     */
+    public String getDisplayName() {
+        String name = displayName;
+        if (name == null) {
+            Thread main = mainThread;
+            return main == null ? "unknown" : main.getName();
+        }
+        return name;
+    }
+
+    /**
+     * @param displayName
+     * @since 2.0.1
+     */
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
     /**
      * @param t
      * @return is a newly bound thread
@@ -121,7 +147,15 @@ public abstract class BaseScriptContext<T> {
         if (t == null) {
             throw new ScriptAssertionError("Cannot bind null thread");
         }
-        return threads.add(t);
+        if (threads.add(t)) {
+            if (t instanceof JsMacrosThreadPool.PoolThread) {
+                ((JsMacrosThreadPool.PoolThread) t).onBind(this);
+            } else {
+                boundByThread.put(t, new WeakReference<>(this));
+            }
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -130,12 +164,37 @@ public abstract class BaseScriptContext<T> {
      */
     public synchronized void unbindThread(Thread t) {
         if (!threads.remove(t)) throw new ScriptAssertionError("Cannot unbind thread that is not bound");
+        if (t instanceof JsMacrosThreadPool.PoolThread) {
+            ((JsMacrosThreadPool.PoolThread) t).onUnbind(this);
+        } else {
+            synchronized (boundByThread) {
+                WeakReference<BaseScriptContext<?>> ref = boundByThread.get(t);
+                if (ref != null && ref.get() == this) {
+                    boundByThread.remove(t);
+                }
+            }
+        }
         EventContainer<?> container = events.get(t);
         if (container != null) {
             container.releaseLock();
         }
     }
 
+    /**
+     * unbind {@code t} if it's still bound, for pooled threads that are about to run another task.
+     *
+     * @param t
+     * @return if the thread was bound.
+     * @since 2.0.1
+     */
+    public synchronized boolean unbindThreadIfBound(Thread t) {
+        if (!threads.contains(t)) {
+            return false;
+        }
+        unbindThread(t);
+        return true;
+    }
+
     /**
      * @return
      * @since 1.6.0
@@ -144,6 +203,36 @@ public abstract class BaseScriptContext<T> {
         return threads;
     }
 
+    /**
+     * same as {@code getBoundThreads().contains(t)} without taking the context's lock.
+     *
+     * @param t
+     * @since 2.0.1
+     */
+    public boolean isBoundThread(Thread t) {
+        return threads.contains(t);
+    }
+
+    /**
+     * @param t
+     * @return the open context {@code t} was last bound to, or {@code null} if it isn't bound to one.
+     * @since 2.0.1
+     */
+    @Nullable
+    public static BaseScriptContext<?> getBoundContext(Thread t) {
+        if (t instanceof JsMacrosThreadPool.PoolThread) {
+            for (BaseScriptContext<?> ctx : ((JsMacrosThreadPool.PoolThread) t).getBoundContexts()) {
+                if (!ctx.isContextClosed()) {
+                    return ctx;
+                }
+            }
+            return null;
+        }
+        WeakReference<BaseScriptContext<?>> ref = boundByThread.get(t);
+        BaseScriptContext<?> ctx = ref == null ? null : ref.get();
+        return ctx == null || ctx.isContextClosed() || !ctx.isBoundThread(t) ? null : ctx;
+    }
+
     /**
      * @param t
      * @since 1.5.0
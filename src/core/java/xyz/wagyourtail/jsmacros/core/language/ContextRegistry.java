@@ -0,0 +1,179 @@
+package xyz.wagyourtail.jsmacros.core.language;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * weak set of the script contexts that are currently open, safe to use from any thread without a global lock.
+ * <p>
+ * contexts are compared by identity. a context that gets garbage collected without ever being removed,
+ * which {@link BaseScriptContext#closeContext()} does, is counted as leaked.
+ *
+ * @since 2.0.1
+ */
+public class ContextRegistry extends AbstractSet<BaseScriptContext<?>> {
+    private final Map<Ref, Boolean> contexts = new ConcurrentHashMap<>();
+    private final ReferenceQueue<BaseScriptContext<?>> queue = new ReferenceQueue<>();
+    private final LongAdder added = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder leaked = new LongAdder();
+
+    private void purge() {
+        Reference<? extends BaseScriptContext<?>> ref;
+        while ((ref = queue.poll()) != null) {
+            if (contexts.remove(ref) != null) {
+                leaked.increment();
+            }
+        }
+    }
+
+    @Override
+    public boolean add(BaseScriptContext<?> context) {
+        purge();
+        if (contexts.putIfAbsent(new Ref(context, queue), Boolean.TRUE) == null) {
+            added.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        purge();
+        if (!(o instanceof BaseScriptContext<?>)) {
+            return false;
+        }
+        if (contexts.remove(new Ref((BaseScriptContext<?>) o, null)) != null) {
+            closed.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof BaseScriptContext<?> && contexts.containsKey(new Ref((BaseScriptContext<?>) o, null));
+    }
+
+    @Override
+    public int size() {
+        purge();
+        return contexts.size();
+    }
+
+    @Override
+    public void clear() {
+        contexts.clear();
+    }
+
+    /**
+     * @return the contexts open right now, later changes to the registry don't affect the returned list.
+     */
+    public List<BaseScriptContext<?>> snapshot() {
+        purge();
+        List<BaseScriptContext<?>> list = new ArrayList<>(contexts.size());
+        for (Ref ref : contexts.keySet()) {
+            BaseScriptContext<?> context = ref.get();
+            if (context != null) {
+                list.add(context);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * iterates over a {@link #snapshot()}, removing through the iterator removes from the registry.
+     */
+    @Override
+    public Iterator<BaseScriptContext<?>> iterator() {
+        Iterator<BaseScriptContext<?>> it = snapshot().iterator();
+        return new Iterator<>() {
+            private BaseScriptContext<?> last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public BaseScriptContext<?> next() {
+                return last = it.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ContextRegistry.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * @return number of contexts currently registered.
+     */
+    public int getLiveCount() {
+        return size();
+    }
+
+    /**
+     * @return number of contexts ever registered.
+     */
+    public long getTotalCount() {
+        return added.sum();
+    }
+
+    /**
+     * @return number of contexts that were closed and removed.
+     */
+    public long getClosedCount() {
+        return closed.sum();
+    }
+
+    /**
+     * @return number of contexts that were garbage collected without being closed.
+     */
+    public long getLeakedCount() {
+        purge();
+        return leaked.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ContextRegistry:{\"live\": %d, \"total\": %d, \"closed\": %d, \"leaked\": %d}", getLiveCount(), getTotalCount(), getClosedCount(), getLeakedCount());
+    }
+
+    private static final class Ref extends WeakReference<BaseScriptContext<?>> {
+        private final int hash;
+
+        Ref(BaseScriptContext<?> referent, ReferenceQueue<BaseScriptContext<?>> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Ref)) {
+                return false;
+            }
+            BaseScriptContext<?> referent = get();
+            return referent != null && referent == ((Ref) o).get();
+        }
+
+    }
+
+}
@@ -1,6 +1,8 @@
 package xyz.wagyourtail.jsmacros.core.language;
 
+import org.jetbrains.annotations.ApiStatus;
 import xyz.wagyourtail.jsmacros.core.Core;
+import xyz.wagyourtail.jsmacros.core.EventLockWatchdog;
 import xyz.wagyourtail.jsmacros.core.MethodWrapper;
 
 import java.util.ArrayList;
@@ -14,6 +16,7 @@ public class EventContainer<T extends BaseScriptContext<?>> {
     private final T ctx;
     private Thread lockThread;
     private boolean locked = true;
+    private EventLockWatchdog.Deadline watchdog;
 
     private final List<Runnable> then = new ArrayList<>();
 
@@ -34,6 +37,23 @@ public class EventContainer<T extends BaseScriptContext<?>> {
             ctx.events.put(lockThread, (EventContainer) this);
     }
 
+    /**
+     * @param watchdog
+     * @return {@code false} if the lock was already released.
+     * @since 2.0.1
+     */
+    @ApiStatus.Internal
+    public synchronized boolean setWatchdog(EventLockWatchdog.Deadline watchdog) {
+        if (!locked) {
+            return false;
+        }
+        if (this.watchdog != null) {
+            this.watchdog.cancel();
+        }
+        this.watchdog = watchdog;
+        return true;
+    }
+
     public T getCtx() {
         return ctx;
     }
@@ -76,6 +96,10 @@ public class EventContainer<T extends BaseScriptContext<?>> {
      */
     public synchronized void releaseLock() {
         locked = false;
+        if (watchdog != null) {
+            watchdog.cancel();
+            watchdog = null;
+        }
         Core.getInstance().profile.joinedThreadStack.remove(lockThread);
         for (Runnable runnable : then) {
             try {
@@ -0,0 +1,115 @@
+package xyz.wagyourtail.jsmacros.core.language;
+
+import org.jetbrains.annotations.ApiStatus;
+import xyz.wagyourtail.jsmacros.core.Core;
+import xyz.wagyourtail.jsmacros.core.config.ScriptTrigger;
+import xyz.wagyourtail.jsmacros.core.extensions.LanguageExtension;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * everything {@link Core#exec(ScriptTrigger, xyz.wagyourtail.jsmacros.core.event.BaseEvent)} works out about a trigger
+ * before it can run it, kept between runs so triggers that fire often don't redo it.
+ *
+ * @since 2.0.1
+ */
+public final class ResolvedTrigger {
+    /**
+     * copy of the trigger as it was when resolved, to check it against the trigger, each run still gets its own copy.
+     */
+    public final ScriptTrigger trigger;
+    /**
+     * the script file as the context sees it, relative to the macro folder without resolving links.
+     */
+    public final File file;
+    public final BaseLanguage<?, ?> language;
+    public final String threadName;
+
+    ResolvedTrigger(ScriptTrigger trigger, File file, BaseLanguage<?, ?> language) {
+        this.trigger = trigger;
+        this.file = file;
+        this.language = language;
+        this.threadName = String.format("Script:{\"trigger\":\"%s\", \"event\":\"%s\", \"file\":\"%s\"}", trigger.triggerType, trigger.event, trigger.scriptFile);
+    }
+
+    /**
+     * @param macro
+     * @return if this is still up to date for {@code macro}.
+     */
+    public boolean matches(ScriptTrigger macro) {
+        return trigger.triggerType == macro.triggerType
+                && trigger.joined == macro.joined
+                && trigger.enabled == macro.enabled
+                && trigger.scriptFile.equals(macro.scriptFile)
+                && trigger.event.equals(macro.event);
+    }
+
+    public static File resolveFile(Core<?, ?> runner, String scriptFile) {
+        return new File(runner.config.macroFolder, scriptFile);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResolvedTrigger:{\"trigger\": %s, \"file\": \"%s\", \"language\": \"%s\"}", trigger, file, language.extension.getExtensionName());
+    }
+
+    /**
+     * per trigger cache of {@link ResolvedTrigger}s, entries are checked against the trigger on every lookup
+     * so edited triggers are picked up, and dropped entirely when the profile or extensions are reloaded.
+     */
+    public static class Cache {
+        private final Core<?, ?> runner;
+        private final Map<ScriptTrigger, ResolvedTrigger> cache = Collections.synchronizedMap(new WeakHashMap<>());
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        public Cache(Core<?, ?> runner) {
+            this.runner = runner;
+        }
+
+        public ResolvedTrigger resolve(ScriptTrigger macro) {
+            ResolvedTrigger resolved = cache.get(macro);
+            if (resolved != null && resolved.matches(macro)) {
+                hits.increment();
+                return resolved;
+            }
+            misses.increment();
+            ScriptTrigger copy = macro.copy();
+            File file = resolveFile(runner, copy.scriptFile);
+            LanguageExtension l = runner.extensions.getExtensionForFile(file);
+            if (l == null) {
+                l = runner.extensions.getHighestPriorityExtension();
+            }
+            resolved = new ResolvedTrigger(copy, file, l.getLanguage(runner));
+            cache.put(macro, resolved);
+            return resolved;
+        }
+
+        public void invalidate(ScriptTrigger macro) {
+            cache.remove(macro);
+        }
+
+        @ApiStatus.Internal
+        public void invalidateAll() {
+            cache.clear();
+        }
+
+        public int size() {
+            return cache.size();
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+    }
+
+}
@@ -6,6 +6,9 @@ import java.lang.annotation.*;
 
 /**
  * Base Function interface.
+ * <p>
+ * languages may bind per exec libraries lazily, graal binds them as a proxy that's only replaced
+ * by the library once the script uses one of its members, so before that the global isn't a java object to the script.
  *
  * @author Wagyourtail
  */
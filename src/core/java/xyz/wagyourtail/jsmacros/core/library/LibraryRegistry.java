@@ -1,12 +1,16 @@
 package xyz.wagyourtail.jsmacros.core.library;
 
+import org.jetbrains.annotations.Nullable;
 import xyz.wagyourtail.jsmacros.core.language.BaseLanguage;
 import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class LibraryRegistry {
 
@@ -15,6 +19,10 @@ public class LibraryRegistry {
     public final Map<Class<? extends BaseLanguage<?, ?>>, Map<Library, PerLanguageLibrary>> perLanguage = new LinkedHashMap<>();
     public final Map<Class<? extends BaseLanguage<?, ?>>, Map<Library, Class<? extends PerExecLanguageLibrary<?, ?>>>> perExecLanguage = new LinkedHashMap<>();
 
+    // per language class, rebuilt after a library is added.
+    private final Map<Class<?>, Map<String, BaseLibrary>> onceCache = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<PerExecFactory>> perExecCache = new ConcurrentHashMap<>();
+
     public LibraryRegistry() {
     }
 
@@ -26,6 +34,14 @@ public class LibraryRegistry {
     }
 
     public Map<String, BaseLibrary> getOnceLibraries(BaseLanguage<?, ?> language) {
+        Map<String, BaseLibrary> libs = onceCache.get(language.getClass());
+        if (libs == null) {
+            libs = computeOnceLibraries(language);
+        }
+        return new LinkedHashMap<>(libs);
+    }
+
+    private synchronized Map<String, BaseLibrary> computeOnceLibraries(BaseLanguage<?, ?> language) {
         Map<String, BaseLibrary> libs = new LinkedHashMap<>();
 
         for (Map.Entry<Library, BaseLibrary> lib : libraries.entrySet()) {
@@ -42,18 +58,55 @@ public class LibraryRegistry {
             }
         }
 
+        libs = Collections.unmodifiableMap(libs);
+        onceCache.put(language.getClass(), libs);
         return libs;
     }
 
     public Map<String, BaseLibrary> getPerExecLibraries(BaseLanguage<?, ?> language, BaseScriptContext<?> context) {
         Map<String, BaseLibrary> libs = new LinkedHashMap<>();
+        for (PerExecFactory factory : getPerExecFactories(language, context)) {
+            libs.put(factory.name, factory.create(context));
+        }
+        return libs;
+    }
+
+    /**
+     * same as {@link #getPerExecLibraries(BaseLanguage, BaseScriptContext)}, but each library is only constructed
+     * when its supplier is first called, so languages can bind libraries the script never touches without paying for them.
+     *
+     * @param language
+     * @param context
+     * @return suppliers that construct a new library each call.
+     * @since 2.0.1
+     */
+    public Map<String, Supplier<BaseLibrary>> getLazyPerExecLibraries(BaseLanguage<?, ?> language, BaseScriptContext<?> context) {
+        Map<String, Supplier<BaseLibrary>> libs = new LinkedHashMap<>();
+        for (PerExecFactory factory : getPerExecFactories(language, context)) {
+            libs.put(factory.name, () -> factory.create(context));
+        }
+        return libs;
+    }
+
+    private List<PerExecFactory> getPerExecFactories(BaseLanguage<?, ?> language, BaseScriptContext<?> context) {
+        List<PerExecFactory> factories = perExecCache.get(language.getClass());
+        if (factories == null) {
+            factories = computePerExecFactories(language, context.getClass());
+        }
+        return factories;
+    }
+
+    private synchronized List<PerExecFactory> computePerExecFactories(BaseLanguage<?, ?> language, Class<?> contextClass) {
+        List<PerExecFactory> factories = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
 
         for (Map.Entry<Library, Class<? extends PerExecLibrary>> lib : perExec.entrySet()) {
             if (lib.getKey().languages().length == 0 || Arrays.stream(lib.getKey().languages()).anyMatch(e -> e.equals(language.getClass()))) {
                 try {
-                    libs.put(lib.getKey().value(), lib.getValue().getConstructor(BaseScriptContext.class).newInstance(context));
-                } catch (IllegalAccessException | InstantiationException | NoSuchMethodException |
-                         InvocationTargetException e) {
+                    MethodHandle constructor = lookup.findConstructor(lib.getValue(), MethodType.methodType(void.class, BaseScriptContext.class))
+                            .asType(MethodType.methodType(BaseLibrary.class, BaseScriptContext.class));
+                    factories.add(new PerExecFactory(lib.getKey().value(), MethodHandles.dropArguments(constructor, 1, Class.class), null));
+                } catch (IllegalAccessException | NoSuchMethodException e) {
                     throw new RuntimeException("Failed to instantiate library, ", e);
                 }
             }
@@ -64,9 +117,10 @@ public class LibraryRegistry {
                 for (Map.Entry<Library, Class<? extends PerExecLanguageLibrary<?, ?>>> lib : languageEntry.getValue().entrySet()) {
                     if (Arrays.stream(lib.getKey().languages()).anyMatch(e -> e.equals(language.getClass()))) {
                         try {
-                            libs.put(lib.getKey().value(), lib.getValue().getConstructor(context.getClass(), Class.class).newInstance(context, language.getClass()));
-                        } catch (IllegalAccessException | InstantiationException | NoSuchMethodException |
-                                 InvocationTargetException e) {
+                            MethodHandle constructor = lookup.findConstructor(lib.getValue(), MethodType.methodType(void.class, contextClass, Class.class))
+                                    .asType(MethodType.methodType(BaseLibrary.class, BaseScriptContext.class, Class.class));
+                            factories.add(new PerExecFactory(lib.getKey().value(), constructor, language.getClass()));
+                        } catch (IllegalAccessException | NoSuchMethodException e) {
                             throw new RuntimeException("Failed to instantiate library, ", e);
                         }
                     }
@@ -74,10 +128,14 @@ public class LibraryRegistry {
             }
         }
 
-        return libs;
+        factories = Collections.unmodifiableList(factories);
+        perExecCache.put(language.getClass(), factories);
+        return factories;
     }
 
     public synchronized void addLibrary(Class<? extends BaseLibrary> clazz) {
+        onceCache.clear();
+        perExecCache.clear();
         if (clazz.isAnnotationPresent(Library.class)) {
             Library ann = clazz.getAnnotation(Library.class);
             if (PerExecLibrary.class.isAssignableFrom(clazz)) {
@@ -113,4 +171,27 @@ public class LibraryRegistry {
         }
     }
 
+    private static final class PerExecFactory {
+        final String name;
+        // (BaseScriptContext, Class) -> BaseLibrary
+        final MethodHandle constructor;
+        @Nullable
+        final Class<?> language;
+
+        PerExecFactory(String name, MethodHandle constructor, @Nullable Class<?> language) {
+            this.name = name;
+            this.constructor = constructor;
+            this.language = language;
+        }
+
+        BaseLibrary create(BaseScriptContext<?> context) {
+            try {
+                return (BaseLibrary) constructor.invokeExact(context, (Class<?>) language);
+            } catch (Throwable e) {
+                throw new RuntimeException("Failed to instantiate library, ", e);
+            }
+        }
+
+    }
+
 }
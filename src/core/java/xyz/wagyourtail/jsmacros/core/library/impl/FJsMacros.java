@@ -13,12 +13,18 @@ import xyz.wagyourtail.jsmacros.core.config.ConfigManager;
 import xyz.wagyourtail.jsmacros.core.config.ScriptTrigger;
 import xyz.wagyourtail.jsmacros.core.event.*;
 import xyz.wagyourtail.jsmacros.core.event.impl.*;
+import xyz.wagyourtail.jsmacros.core.extensions.StartupReport;
 import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
 import xyz.wagyourtail.jsmacros.core.language.EventContainer;
 import xyz.wagyourtail.jsmacros.core.library.Library;
 import xyz.wagyourtail.jsmacros.core.library.PerExecLibrary;
+import xyz.wagyourtail.jsmacros.core.library.impl.classes.BatchedEventListener;
+import xyz.wagyourtail.jsmacros.core.library.impl.classes.QueuedEventListener;
 import xyz.wagyourtail.jsmacros.core.library.impl.classes.WrappedScript;
+import xyz.wagyourtail.jsmacros.core.profiler.ContextDiagnostics;
+import xyz.wagyourtail.jsmacros.core.profiler.DispatchProfiler;
 import xyz.wagyourtail.jsmacros.core.service.ServiceManager;
+import xyz.wagyourtail.jsmacros.core.threads.JsMacrosThreadPool;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
@@ -67,12 +73,46 @@ public class FJsMacros extends PerExecLibrary {
         return Core.getInstance().services;
     }
 
+    /**
+     * @return the thread pool scripts and event listeners run on, for checking its usage counters.
+     * @since 2.0.1
+     */
+    public JsMacrosThreadPool getThreadPool() {
+        return Core.getInstance().threadPool;
+    }
+
+    /**
+     * @return the event dispatch profiler, enable it with {@link DispatchProfiler#setEnabled(boolean)}
+     * or the dispatch profiler setting.
+     * @since 2.0.1
+     */
+    public DispatchProfiler getProfiler() {
+        return Core.getInstance().profiler;
+    }
+
+    /**
+     * @return how long each phase of loading extensions took, language warm up is added once it finishes.
+     * @since 2.0.1
+     */
+    public StartupReport getStartupReport() {
+        return Core.getInstance().extensions.getStartupReport();
+    }
+
+    /**
+     * @return age, listeners, registered resources and estimated size of every open context,
+     * with methods to find and force close leaked ones.
+     * @since 2.0.1
+     */
+    public ContextDiagnostics getContextDiagnostics() {
+        return Core.getInstance().diagnostics;
+    }
+
     /**
      * @return list of non-garbage-collected ScriptContext's
      * @since 1.4.0
      */
     public List<BaseScriptContext<?>> getOpenContexts() {
-        return ImmutableList.copyOf(Core.getInstance().getContexts());
+        return Core.getInstance().getContextRegistry().snapshot();
     }
 
     /**
@@ -371,15 +411,22 @@ public class FJsMacros extends PerExecLibrary {
                 if (filterer != null && !filterer.test(e)) return null;
                 EventContainer<?> p = new EventContainer<>(callback.getCtx());
                 Thread ot = callback.overrideThread();
+                DispatchProfiler profiler = Core.getInstance().profiler;
+                DispatchProfiler.ListenerStats stats = profiler.isEnabled() ? profiler.listener(event, this) : null;
+                long queuedAt = stats == null ? 0 : System.nanoTime();
                 Thread th = Core.getInstance().threadPool.runTask(() -> {
                     Thread t = Thread.currentThread();
                     t.setName(this.toString());
+                    long start = stats == null ? 0 : System.nanoTime();
                     try {
                         callback.accept(e, p);
                     } catch (Throwable ex) {
                         Core.getInstance().eventRegistry.removeListener(event, this);
                         Core.getInstance().profile.logError(ex);
                     } finally {
+                        if (stats != null) {
+                            stats.recordRun(queuedAt, start);
+                        }
                         p.releaseLock();
                     }
                 });
@@ -387,6 +434,11 @@ public class FJsMacros extends PerExecLibrary {
                 return p;
             }
 
+            @Override
+            public EventFilterer getFilterer() {
+                return filterer;
+            }
+
             @Override
             public String getCreatorName() {
                 return creatorName;
@@ -417,6 +469,92 @@ public class FJsMacros extends PerExecLibrary {
         return listener;
     }
 
+    /**
+     * Creates a listener that delivers events through a bounded queue, drained in order by a single thread,
+     * instead of starting a new task per event. Useful for frequent events like {@code Tick} or {@code RecvPacket}
+     * when the callback may be slower than the events arrive.<br>
+     * example:
+     * <pre>
+     * JsMacros.on("RecvPacket", null, {queue: 64, overflow: "dropOldest"}, JavaWrapper.methodToJava(e => {...}));
+     * </pre>
+     *
+     * @param event
+     * @param filterer may be {@code null}
+     * @param options  {@code queue}: max queued events, default 64.<br>
+     *                 {@code overflow}: what to do when the queue is full, {@code "dropOldest"} (default),
+     *                 {@code "coalesce"} to only keep the latest event per event name, or {@code "block"} to wait
+     *                 (at most the max joined lock time) for room.
+     * @param callback calls your method as a {@link java.util.function.BiConsumer BiConsumer}&lt;{@link BaseEvent}, {@link EventContainer}&gt;
+     * @return the listener.
+     * @see QueuedEventListener
+     * @since 2.0.1
+     */
+    @DocletReplaceTypeParams("E extends keyof Events")
+    @DocletReplaceParams("event: E, filterer: EventFilterer | null, options: { queue?: int, overflow?: 'dropOldest' | 'coalesce' | 'block' }, callback: MethodWrapper<Events[E], EventContainer>")
+    public IEventListener on(String event, @Nullable EventFilterer filterer, Map<String, Object> options, MethodWrapper<BaseEvent, EventContainer<?>, Object, ?> callback) {
+        if (callback == null) {
+            return null;
+        }
+        if (!Core.getInstance().eventRegistry.events.contains(event)) {
+            throw new IllegalArgumentException(String.format("Event \"%s\" not found, if it's a custom event register it with 'event.registerEvent()' first.", event));
+        }
+        if (filterer != null && !filterer.canFilter(event)) {
+            throw new IllegalArgumentException(String.format("Provided filterer (%s) cannot be used to filter %s event!", filterer.getClass().getSimpleName(), event));
+        }
+        int capacity = 64;
+        QueuedEventListener.Overflow overflow = QueuedEventListener.Overflow.DROP_OLDEST;
+        if (options != null) {
+            Object queue = options.get("queue");
+            if (queue instanceof Number) {
+                capacity = ((Number) queue).intValue();
+            }
+            Object mode = options.get("overflow");
+            if (mode != null) {
+                overflow = QueuedEventListener.Overflow.fromString(mode.toString());
+            }
+        }
+        IEventListener listener = new QueuedEventListener(event, filterer, capacity, overflow, callback);
+        Core.getInstance().eventRegistry.addListener(event, listener);
+        ctx.eventListeners.put(listener, event);
+        return listener;
+    }
+
+    /**
+     * Creates a listener that collects events and calls {@code callback} once with a list of them,
+     * instead of once per event. This is much cheaper for frequent events like {@code RecvPacket},
+     * {@code SendPacket}, {@code BlockUpdate} or {@code Sound}.<br>
+     * a batch is delivered once it has {@code maxBatch} events, or {@code maxDelayTicks} client ticks after
+     * its first event. while a batch is being handled the next one keeps filling, once that one is full too
+     * its oldest events are dropped.
+     *
+     * @param event
+     * @param maxBatch      max events per batch.
+     * @param maxDelayTicks max ticks to hold on to a partial batch, 0 delivers every tick.
+     * @param filterer      may be {@code null}
+     * @param callback      calls your method as a {@link java.util.function.Consumer Consumer}&lt;{@link List}&lt;{@link BaseEvent}&gt;&gt;
+     * @return the listener.
+     * @see BatchedEventListener
+     * @since 2.0.1
+     */
+    @DocletReplaceTypeParams("E extends keyof Events")
+    @DocletReplaceParams("event: E, maxBatch: int, maxDelayTicks: int, filterer: EventFilterer | null, callback: MethodWrapper<JavaList<Events[E]>>")
+    public IEventListener onBatch(String event, int maxBatch, int maxDelayTicks, @Nullable EventFilterer filterer, MethodWrapper<List<BaseEvent>, Object, Object, ?> callback) {
+        if (callback == null) {
+            return null;
+        }
+        if (!Core.getInstance().eventRegistry.events.contains(event)) {
+            throw new IllegalArgumentException(String.format("Event \"%s\" not found, if it's a custom event register it with 'event.registerEvent()' first.", event));
+        }
+        if (filterer != null && !filterer.canFilter(event)) {
+            throw new IllegalArgumentException(String.format("Provided filterer (%s) cannot be used to filter %s event!", filterer.getClass().getSimpleName(), event));
+        }
+        BatchedEventListener listener = new BatchedEventListener(event, maxBatch, maxDelayTicks, filterer, callback);
+        Core.getInstance().eventRegistry.addListener(event, listener);
+        listener.activate();
+        ctx.eventListeners.put(listener, event);
+        return listener;
+    }
+
     /**
      * Creates a single-run listener for an event, this function can be more efficient that running a script file when used properly.
      *
@@ -464,15 +602,22 @@ public class FJsMacros extends PerExecLibrary {
                 Core.getInstance().eventRegistry.removeListener(event, this);
                 EventContainer<?> p = new EventContainer<>(callback.getCtx());
                 Thread ot = callback.overrideThread();
+                DispatchProfiler profiler = Core.getInstance().profiler;
+                DispatchProfiler.ListenerStats stats = profiler.isEnabled() ? profiler.listener(event, this) : null;
+                long queuedAt = stats == null ? 0 : System.nanoTime();
                 Thread th = Core.getInstance().threadPool.runTask(() -> {
                     Thread t = Thread.currentThread();
 
                     t.setName(this.toString());
+                    long start = stats == null ? 0 : System.nanoTime();
                     try {
                         callback.accept(e, p);
                     } catch (Throwable ex) {
                         Core.getInstance().profile.logError(ex);
                     } finally {
+                        if (stats != null) {
+                            stats.recordRun(queuedAt, start);
+                        }
                         p.releaseLock();
                     }
                 });
@@ -888,8 +1033,9 @@ public class FJsMacros extends PerExecLibrary {
     public void assertEvent(BaseEvent event, String type) {
         if (event == null) throw new AssertionError("event is null!");
         if (type == null) throw new AssertionError("event type is null!");
-        if (event.getClass().isAnnotationPresent(Event.class)) {
-            String eventName = event.getClass().getAnnotation(Event.class).value();
+        EventMeta meta = EventMeta.of(event.getClass());
+        if (meta != null) {
+            String eventName = meta.name;
             if (!eventName.equals(type)) {
                 throw new AssertionError(String.format("event type (%s) is not %s!", eventName, type));
             }
@@ -0,0 +1,227 @@
+package xyz.wagyourtail.jsmacros.core.library.impl.classes;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import xyz.wagyourtail.jsmacros.core.Core;
+import xyz.wagyourtail.jsmacros.core.MethodWrapper;
+import xyz.wagyourtail.jsmacros.core.event.BaseEvent;
+import xyz.wagyourtail.jsmacros.core.event.EventFilterer;
+import xyz.wagyourtail.jsmacros.core.event.IEventListener;
+import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
+import xyz.wagyourtail.jsmacros.core.language.EventContainer;
+import xyz.wagyourtail.jsmacros.core.library.impl.FJsMacros;
+import xyz.wagyourtail.jsmacros.core.profiler.DispatchProfiler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Event listener that buffers events on the java side and hands them to its callback as a list,
+ * so the script context is only entered once per batch instead of once per event.
+ * <p>
+ * A batch is delivered when it reaches {@link #maxBatch} events or when {@link #maxDelayTicks} ticks have passed
+ * since the first buffered event, ticks are driven by {@link #tickAll()}.
+ *
+ * @see FJsMacros#onBatch(String, int, int, EventFilterer, MethodWrapper)
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class BatchedEventListener implements FJsMacros.ScriptEventListener {
+    private static final Set<BatchedEventListener> active = ConcurrentHashMap.newKeySet();
+
+    private final String event;
+    @Nullable
+    private final EventFilterer filterer;
+    private final MethodWrapper<List<BaseEvent>, Object, Object, ?> callback;
+    private final String creatorName;
+    public final int maxBatch;
+    public final int maxDelayTicks;
+
+    // a deque so dropping the oldest event of a full batch doesn't shift the rest.
+    private final ArrayDeque<BaseEvent> buffer;
+    private int bufferAge = 0;
+    private boolean delivering = false;
+    private long dropped = 0;
+    private long batches = 0;
+
+    public BatchedEventListener(String event, int maxBatch, int maxDelayTicks, @Nullable EventFilterer filterer, MethodWrapper<List<BaseEvent>, Object, Object, ?> callback) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be at least 1, got " + maxBatch);
+        }
+        this.event = event;
+        this.maxBatch = maxBatch;
+        this.maxDelayTicks = Math.max(0, maxDelayTicks);
+        this.filterer = filterer;
+        this.callback = callback;
+        this.creatorName = Thread.currentThread().getName();
+        this.buffer = new ArrayDeque<>(Math.min(maxBatch, 256));
+    }
+
+    /**
+     * advance every batching listener by one tick, delivering batches that are old enough.
+     * called once per client tick.
+     */
+    @ApiStatus.Internal
+    public static void tickAll() {
+        if (active.isEmpty()) {
+            return;
+        }
+        for (BatchedEventListener listener : active) {
+            listener.tick();
+        }
+    }
+
+    /**
+     * must be called after the listener is added to the event registry.
+     */
+    @ApiStatus.Internal
+    public void activate() {
+        active.add(this);
+    }
+
+    @Override
+    public boolean joined() {
+        return false;
+    }
+
+    @Override
+    public EventContainer<?> trigger(BaseEvent e) {
+        if (filterer != null && !filterer.test(e)) {
+            return null;
+        }
+        List<BaseEvent> ready = null;
+        synchronized (this) {
+            if (buffer.size() >= maxBatch) {
+                // a batch is still being delivered and the next one is already full.
+                buffer.pollFirst();
+                dropped++;
+            }
+            buffer.addLast(e);
+            if (buffer.size() >= maxBatch) {
+                ready = takeBatch();
+            }
+        }
+        if (ready != null) {
+            deliver(ready);
+        }
+        return null;
+    }
+
+    private void tick() {
+        if (!isRegistered()) {
+            active.remove(this);
+            return;
+        }
+        List<BaseEvent> ready = null;
+        synchronized (this) {
+            if (!buffer.isEmpty() && ++bufferAge >= maxDelayTicks) {
+                ready = takeBatch();
+            }
+        }
+        if (ready != null) {
+            deliver(ready);
+        }
+    }
+
+    private boolean isRegistered() {
+        for (IEventListener l : Core.getInstance().eventRegistry.getListenerSnapshot(event)) {
+            if (l == this) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // must hold this, returns null if a batch is still being delivered.
+    private List<BaseEvent> takeBatch() {
+        if (delivering) {
+            return null;
+        }
+        delivering = true;
+        List<BaseEvent> batch = new ArrayList<>(buffer);
+        buffer.clear();
+        bufferAge = 0;
+        return batch;
+    }
+
+    private void deliver(List<BaseEvent> batch) {
+        DispatchProfiler profiler = Core.getInstance().profiler;
+        DispatchProfiler.ListenerStats stats = profiler.isEnabled() ? profiler.listener(event, this) : null;
+        long queuedAt = stats == null ? 0 : System.nanoTime();
+        Core.getInstance().threadPool.runTask(() -> {
+            Thread.currentThread().setName(this.toString());
+            long start = stats == null ? 0 : System.nanoTime();
+            try {
+                callback.accept(Collections.unmodifiableList(batch));
+                synchronized (this) {
+                    batches++;
+                }
+            } catch (Throwable ex) {
+                off();
+                Core.getInstance().profile.logError(ex);
+            } finally {
+                if (stats != null) {
+                    stats.recordRun(queuedAt, start);
+                }
+                synchronized (this) {
+                    delivering = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * @return number of events dropped because a full batch was waiting on the previous one.
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return number of batches delivered to the callback.
+     */
+    public synchronized long getBatches() {
+        return batches;
+    }
+
+    @Override
+    @Nullable
+    public EventFilterer getFilterer() {
+        return filterer;
+    }
+
+    @Override
+    public String getCreatorName() {
+        return creatorName;
+    }
+
+    /**
+     * @return the callback, note that it takes a list of events rather than an event and a container.
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public MethodWrapper<BaseEvent, EventContainer<?>, Object, ?> getWrapper() {
+        return (MethodWrapper) callback;
+    }
+
+    @Override
+    public BaseScriptContext<?> getCtx() {
+        return callback.getCtx();
+    }
+
+    @Override
+    public void off() {
+        active.remove(this);
+        Core.getInstance().eventRegistry.removeListener(event, this);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchedScriptEventListener:{\"creator\":\"%s\", \"event\":\"%s\", \"maxBatch\":%d, \"maxDelayTicks\":%d}", creatorName, event, maxBatch, maxDelayTicks);
+    }
+
+}
@@ -0,0 +1,282 @@
+package xyz.wagyourtail.jsmacros.core.library.impl.classes;
+
+import org.jetbrains.annotations.Nullable;
+import xyz.wagyourtail.jsmacros.core.Core;
+import xyz.wagyourtail.jsmacros.core.MethodWrapper;
+import xyz.wagyourtail.jsmacros.core.config.CoreConfigV2;
+import xyz.wagyourtail.jsmacros.core.event.BaseEvent;
+import xyz.wagyourtail.jsmacros.core.event.EventFilterer;
+import xyz.wagyourtail.jsmacros.core.event.IndexedEvent;
+import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
+import xyz.wagyourtail.jsmacros.core.language.EventContainer;
+import xyz.wagyourtail.jsmacros.core.library.impl.FJsMacros;
+import xyz.wagyourtail.jsmacros.core.profiler.DispatchProfiler;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+/**
+ * Event listener that delivers events to its callback through a bounded queue, drained in order by a single worker
+ * thread, so a slow listener can't pile up a thread per event.
+ *
+ * @see FJsMacros#on(String, EventFilterer, java.util.Map, MethodWrapper)
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class QueuedEventListener implements FJsMacros.ScriptEventListener {
+    private final String event;
+    @Nullable
+    private final EventFilterer filterer;
+    private final MethodWrapper<BaseEvent, EventContainer<?>, Object, ?> callback;
+    private final String creatorName;
+    public final int capacity;
+    public final Overflow overflow;
+
+    private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+    // used instead of queue when coalescing, keyed by the event's index key (packet type, block, ...) or its name.
+    private final LinkedHashMap<Object, Queued> coalesced = new LinkedHashMap<>();
+    private boolean draining = false;
+    private Thread drainThread = null;
+    private long dropped = 0;
+    private long delivered = 0;
+
+    public QueuedEventListener(String event, @Nullable EventFilterer filterer, int capacity, Overflow overflow, MethodWrapper<BaseEvent, EventContainer<?>, Object, ?> callback) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("queue size must be at least 1, got " + capacity);
+        }
+        this.event = event;
+        this.filterer = filterer;
+        this.capacity = capacity;
+        this.overflow = overflow;
+        this.callback = callback;
+        this.creatorName = Thread.currentThread().getName();
+    }
+
+    @Override
+    public boolean joined() {
+        return false;
+    }
+
+    @Override
+    public EventContainer<?> trigger(BaseEvent e) {
+        if (filterer != null && !filterer.test(e)) {
+            return null;
+        }
+        synchronized (this) {
+            if (!enqueue(e) || draining) {
+                return null;
+            }
+            draining = true;
+        }
+        Core.getInstance().threadPool.runTask(this::drain);
+        return null;
+    }
+
+    // must hold this
+    private boolean enqueue(BaseEvent e) {
+        switch (overflow) {
+            case COALESCE:
+                Object key = coalesceKey(e);
+                if (coalesced.remove(key) == null && coalesced.size() >= capacity) {
+                    Iterator<Queued> it = coalesced.values().iterator();
+                    it.next();
+                    it.remove();
+                    dropped++;
+                }
+                coalesced.put(key, new Queued(e));
+                return true;
+            case BLOCK:
+                // never block the drain thread on itself, and never block longer than a joined event could.
+                if (Thread.currentThread() != drainThread) {
+                    long timeout = Core.getInstance().config.getOptions(CoreConfigV2.class).maxLockTime;
+                    long deadline = System.currentTimeMillis() + timeout;
+                    try {
+                        while (queue.size() >= capacity) {
+                            long remaining = deadline - System.currentTimeMillis();
+                            if (remaining <= 0) {
+                                dropped++;
+                                return false;
+                            }
+                            this.wait(remaining);
+                        }
+                    } catch (InterruptedException ex) {
+                        dropped++;
+                        return false;
+                    }
+                }
+                // fall through
+            case DROP_OLDEST:
+            default:
+                if (queue.size() >= capacity) {
+                    queue.pollFirst();
+                    dropped++;
+                }
+                queue.addLast(new Queued(e));
+                return true;
+        }
+    }
+
+    private static Object coalesceKey(BaseEvent e) {
+        if (e instanceof IndexedEvent) {
+            Object key = ((IndexedEvent) e).getIndexKey();
+            if (key != null) {
+                return key;
+            }
+        }
+        return e.getEventName();
+    }
+
+    // must hold this
+    private Queued dequeue() {
+        if (overflow == Overflow.COALESCE) {
+            Iterator<Queued> it = coalesced.values().iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            Queued e = it.next();
+            it.remove();
+            return e;
+        }
+        return queue.pollFirst();
+    }
+
+    private void drain() {
+        Thread t = Thread.currentThread();
+        t.setName(this.toString());
+        synchronized (this) {
+            drainThread = t;
+        }
+        while (true) {
+            Queued e;
+            synchronized (this) {
+                e = dequeue();
+                if (e == null) {
+                    draining = false;
+                    drainThread = null;
+                    return;
+                }
+                // wake producers blocked on a full queue.
+                this.notifyAll();
+            }
+            EventContainer<?> p = new EventContainer<>(callback.getCtx());
+            Thread ot = callback.overrideThread();
+            p.setLockThread(ot == null ? t : ot);
+            DispatchProfiler profiler = Core.getInstance().profiler;
+            DispatchProfiler.ListenerStats stats = profiler.isEnabled() ? profiler.listener(event, this) : null;
+            long start = stats == null ? 0 : System.nanoTime();
+            try {
+                callback.accept(e.event, p);
+                synchronized (this) {
+                    delivered++;
+                }
+            } catch (Throwable ex) {
+                off();
+                synchronized (this) {
+                    queue.clear();
+                    coalesced.clear();
+                    draining = false;
+                    drainThread = null;
+                    this.notifyAll();
+                }
+                Core.getInstance().profile.logError(ex);
+                return;
+            } finally {
+                if (stats != null) {
+                    stats.recordRun(e.queuedAt, start);
+                }
+                p.releaseLock();
+            }
+        }
+    }
+
+    /**
+     * @return number of events currently waiting to be delivered.
+     */
+    public synchronized int getQueued() {
+        return overflow == Overflow.COALESCE ? coalesced.size() : queue.size();
+    }
+
+    /**
+     * @return number of events dropped because the queue was full.
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return number of events delivered to the callback.
+     */
+    public synchronized long getDelivered() {
+        return delivered;
+    }
+
+    @Override
+    @Nullable
+    public EventFilterer getFilterer() {
+        return filterer;
+    }
+
+    @Override
+    public String getCreatorName() {
+        return creatorName;
+    }
+
+    @Override
+    public MethodWrapper<BaseEvent, EventContainer<?>, Object, ?> getWrapper() {
+        return callback;
+    }
+
+    @Override
+    public BaseScriptContext<?> getCtx() {
+        return callback.getCtx();
+    }
+
+    @Override
+    public void off() {
+        Core.getInstance().eventRegistry.removeListener(event, this);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueuedScriptEventListener:{\"creator\":\"%s\", \"event\":\"%s\", \"queue\":%d, \"overflow\":\"%s\"}", creatorName, event, capacity, overflow);
+    }
+
+    private static final class Queued {
+        final BaseEvent event;
+        final long queuedAt = System.nanoTime();
+
+        Queued(BaseEvent event) {
+            this.event = event;
+        }
+
+    }
+
+    public enum Overflow {
+        /**
+         * drop the oldest queued event to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * only keep the latest queued event per index key (packet type, block, ...), or per event name for events without one.
+         */
+        COALESCE,
+        /**
+         * block the triggering thread until there is room, for at most the max joined lock time.
+         */
+        BLOCK;
+
+        /**
+         * @param name {@code "dropOldest"}, {@code "coalesce"} or {@code "block"}
+         */
+        public static Overflow fromString(String name) {
+            try {
+                return valueOf(name.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("Unknown overflow mode \"%s\", expected dropOldest, coalesce or block.", name));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,369 @@
+package xyz.wagyourtail.jsmacros.core.profiler;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.Nullable;
+import xyz.wagyourtail.jsmacros.core.Core;
+import xyz.wagyourtail.jsmacros.core.config.CoreConfigV2;
+import xyz.wagyourtail.jsmacros.core.event.IEventListener;
+import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
+import xyz.wagyourtail.jsmacros.core.language.ContextRegistry;
+import xyz.wagyourtail.jsmacros.core.service.EventService;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * looks into the open script contexts to find the ones that are kept alive by something other than a running thread.
+ * <p>
+ * each context is reported with its age, bound threads, event listeners and the resources it registered,
+ * resource types are counted by {@link ResourceTracker}s registered by the mod, e.g. draw2d, draw3d and commands.
+ * contexts are closed as soon as their main thread ends unless something keeps them alive, so a context is suspect when
+ * only a method wrapper keeps it alive: it's older than the leak threshold setting, isn't a service and has no bound threads,
+ * event listeners or tracked resources that could still call into it.
+ * <p>
+ * the retained size is only an estimate from fixed per object costs, it doesn't walk the heap.
+ *
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class ContextDiagnostics {
+    private static final long CONTEXT_BYTES = 64 * 1024;
+    private static final long THREAD_BYTES = 16 * 1024;
+    private static final long LISTENER_BYTES = 2 * 1024;
+
+    private final Core<?, ?> core;
+    private final Map<String, ResourceTracker> trackers = new ConcurrentHashMap<>();
+
+    public ContextDiagnostics(Core<?, ?> core) {
+        this.core = core;
+    }
+
+    /**
+     * @return the open context that has the current thread bound, or {@code null} if the current thread isn't a script thread.
+     */
+    @Nullable
+    public static BaseScriptContext<?> currentContext() {
+        return BaseScriptContext.getBoundContext(Thread.currentThread());
+    }
+
+    /**
+     * @param type name the counts are reported under.
+     * @param tracker
+     */
+    public void registerResourceTracker(String type, ResourceTracker tracker) {
+        trackers.put(type, tracker);
+    }
+
+    /**
+     * @return names of the registered resource trackers.
+     */
+    public Set<String> getResourceTypes() {
+        return Collections.unmodifiableSet(trackers.keySet());
+    }
+
+    /**
+     * @return kept alive contexts older than this many milliseconds with nothing left to call into them are suspect.
+     */
+    public long getLeakThreshold() {
+        CoreConfigV2 config = core.config.getOptions(CoreConfigV2.class);
+        return config == null ? 600_000 : config.contextLeakThreshold * 1000L;
+    }
+
+    /**
+     * @param ctx
+     * @return a report for the context as it is right now.
+     */
+    public Report getReport(BaseScriptContext<?> ctx) {
+        return new Report(ctx, getLeakThreshold());
+    }
+
+    /**
+     * @return reports for all open contexts, oldest first.
+     */
+    public List<Report> getReports() {
+        long threshold = getLeakThreshold();
+        List<Report> reports = new ArrayList<>();
+        for (BaseScriptContext<?> ctx : core.getContextRegistry().snapshot()) {
+            reports.add(new Report(ctx, threshold));
+        }
+        reports.sort(Comparator.comparingLong(r -> -r.age));
+        return reports;
+    }
+
+    /**
+     * @return reports for the contexts that look leaked, oldest first.
+     */
+    public List<Report> getSuspects() {
+        List<Report> reports = getReports();
+        reports.removeIf(r -> !r.suspect);
+        return reports;
+    }
+
+    /**
+     * remove the context's event listeners, unregister everything it registered and close it,
+     * even if something still keeps it alive.
+     *
+     * @param ctx
+     * @return number of listeners and resources that were removed.
+     */
+    public int forceClose(BaseScriptContext<?> ctx) {
+        int released = 0;
+        List<Map.Entry<IEventListener, String>> listeners;
+        synchronized (ctx.eventListeners) {
+            listeners = new ArrayList<>(ctx.eventListeners.entrySet());
+            ctx.eventListeners.clear();
+        }
+        for (Map.Entry<IEventListener, String> ent : listeners) {
+            if (core.eventRegistry.removeListener(ent.getValue(), ent.getKey())) {
+                released++;
+            }
+        }
+        for (Map.Entry<String, ResourceTracker> ent : trackers.entrySet()) {
+            try {
+                released += ent.getValue().release(ctx);
+            } catch (Throwable t) {
+                core.profile.logError(t);
+            }
+        }
+        ctx.clearSyncObject();
+        if (!ctx.isContextClosed()) {
+            ctx.closeContext();
+        }
+        return released;
+    }
+
+    /**
+     * {@link #forceClose(BaseScriptContext)} all suspect contexts.
+     *
+     * @return number of contexts closed.
+     */
+    public int forceCloseSuspects() {
+        int count = 0;
+        for (Report report : getSuspects()) {
+            BaseScriptContext<?> ctx = report.getContext();
+            if (ctx != null) {
+                forceClose(ctx);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        ContextRegistry registry = core.getContextRegistry();
+        json.addProperty("live", registry.getLiveCount());
+        json.addProperty("leaked", registry.getLeakedCount());
+        json.addProperty("thresholdMillis", getLeakThreshold());
+        JsonArray contexts = new JsonArray();
+        for (Report report : getReports()) {
+            contexts.add(report.toJson());
+        }
+        json.add("contexts", contexts);
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Open contexts:");
+        for (Report report : getReports()) {
+            sb.append("\n  ").append(report);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * counts and releases one kind of resource that scripts register, by the context that created them.
+     */
+    public interface ResourceTracker {
+
+        /**
+         * @param ctx
+         * @return number of live resources owned by {@code ctx}.
+         */
+        int count(BaseScriptContext<?> ctx);
+
+        /**
+         * unregister every resource owned by {@code ctx}.
+         *
+         * @param ctx
+         * @return number of resources released.
+         */
+        int release(BaseScriptContext<?> ctx) throws Exception;
+
+        /**
+         * @return rough heap cost of one resource, used for the retained size estimate.
+         */
+        default long bytesPerResource() {
+            return 4 * 1024;
+        }
+
+    }
+
+    /**
+     * state of one context at the time the report was made.
+     */
+    public class Report {
+        private final BaseScriptContext<?> context;
+        private final File file;
+        private final String threadName;
+        private final long age;
+        private final int threads;
+        private final int listeners;
+        private final Map<String, Integer> resources = new LinkedHashMap<>();
+        private final long estimatedBytes;
+        private final boolean keepAlive;
+        private final boolean closed;
+        private final boolean suspect;
+
+        Report(BaseScriptContext<?> ctx, long threshold) {
+            this.context = ctx;
+            this.file = ctx.getFile();
+            this.threadName = ctx.getDisplayName();
+            this.age = System.currentTimeMillis() - ctx.startTime;
+            this.threads = ctx.getBoundThreads().size();
+            synchronized (ctx.eventListeners) {
+                this.listeners = ctx.eventListeners.size();
+            }
+            long bytes = CONTEXT_BYTES + threads * THREAD_BYTES + listeners * LISTENER_BYTES;
+            for (Map.Entry<String, ResourceTracker> ent : trackers.entrySet()) {
+                int count;
+                try {
+                    count = ent.getValue().count(ctx);
+                } catch (Throwable t) {
+                    count = -1;
+                }
+                resources.put(ent.getKey(), count);
+                if (count > 0) {
+                    bytes += count * ent.getValue().bytesPerResource();
+                }
+            }
+            this.estimatedBytes = bytes;
+            this.keepAlive = ctx.shouldKeepAlive();
+            this.closed = ctx.isContextClosed();
+            this.suspect = !closed && keepAlive && threads == 0 && listeners == 0 && !hasResources() && !(ctx.triggeringEvent instanceof EventService) && age > threshold;
+        }
+
+        /**
+         * @return the context, {@code null} once it has been closed.
+         */
+        @Nullable
+        public BaseScriptContext<?> getContext() {
+            return closed || context.isContextClosed() ? null : context;
+        }
+
+        @Nullable
+        public File getFile() {
+            return file;
+        }
+
+        @Nullable
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         * @return milliseconds since the context was created.
+         */
+        public long getAge() {
+            return age;
+        }
+
+        public int getBoundThreadCount() {
+            return threads;
+        }
+
+        public int getListenerCount() {
+            return listeners;
+        }
+
+        /**
+         * @return live resources by tracker name, {@code -1} if the tracker failed.
+         */
+        public Map<String, Integer> getResources() {
+            return Collections.unmodifiableMap(resources);
+        }
+
+        /**
+         * @return total live resources over all trackers.
+         */
+        public int getResourceCount() {
+            int total = 0;
+            for (int count : resources.values()) {
+                if (count > 0) {
+                    total += count;
+                }
+            }
+            return total;
+        }
+
+        // a tracker that failed counts as having resources, so it can't make a context look leaked.
+        private boolean hasResources() {
+            for (int count : resources.values()) {
+                if (count != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return rough estimate of the heap kept alive by the context, in bytes.
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        /**
+         * @return whether a method wrapper or service keeps the context alive on purpose.
+         */
+        public boolean isKeepAlive() {
+            return keepAlive;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * @return if the context is kept alive past the leak threshold without bound threads, listeners, resources or being a service.
+         */
+        public boolean isSuspect() {
+            return suspect;
+        }
+
+        /**
+         * {@link ContextDiagnostics#forceClose(BaseScriptContext)} the context.
+         *
+         * @return number of listeners and resources that were removed.
+         */
+        public int forceClose() {
+            return ContextDiagnostics.this.forceClose(context);
+        }
+
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("file", file == null ? null : file.getPath());
+            json.addProperty("thread", threadName);
+            json.addProperty("ageMillis", age);
+            json.addProperty("threads", threads);
+            json.addProperty("listeners", listeners);
+            JsonObject res = new JsonObject();
+            resources.forEach(res::addProperty);
+            json.add("resources", res);
+            json.addProperty("estimatedBytes", estimatedBytes);
+            json.addProperty("keepAlive", keepAlive);
+            json.addProperty("suspect", suspect);
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ContextReport:{\"file\": \"%s\", \"age\": %d, \"threads\": %d, \"listeners\": %d, \"resources\": %s, \"estimatedBytes\": %d, \"suspect\": %s}", file, age, threads, listeners, resources, estimatedBytes, suspect);
+        }
+
+    }
+
+}
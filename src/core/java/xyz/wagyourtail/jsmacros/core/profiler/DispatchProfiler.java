@@ -0,0 +1,280 @@
+package xyz.wagyourtail.jsmacros.core.profiler;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import xyz.wagyourtail.jsmacros.core.Core;
+import xyz.wagyourtail.jsmacros.core.event.BaseListener;
+import xyz.wagyourtail.jsmacros.core.event.IEventListener;
+import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
+import xyz.wagyourtail.jsmacros.core.library.impl.FJsMacros;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * records how long event dispatch and the listeners it reaches take, per event and per listener.
+ * <p>
+ * listeners are grouped by event, creator thread and script file, so re-registering the same listener
+ * keeps adding to the same entry. while disabled nothing is recorded and the only cost is checking {@link #isEnabled()}.
+ *
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class DispatchProfiler {
+    private volatile boolean enabled;
+    private volatile long startTime = System.currentTimeMillis();
+    private final Map<String, EventStats> events = new ConcurrentHashMap<>();
+    private final Map<String, ListenerStats> listeners = new ConcurrentHashMap<>();
+    private final Map<IEventListener, ListenerStats> listenerCache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public DispatchProfiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled
+     * @return self for chaining
+     */
+    public DispatchProfiler setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            startTime = System.currentTimeMillis();
+        }
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * clear everything recorded so far.
+     *
+     * @return self for chaining
+     */
+    public DispatchProfiler reset() {
+        events.clear();
+        listeners.clear();
+        listenerCache.clear();
+        startTime = System.currentTimeMillis();
+        return this;
+    }
+
+    /**
+     * @return when recording started, in epoch millis.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    @ApiStatus.Internal
+    public EventStats event(String eventName) {
+        return events.computeIfAbsent(eventName, EventStats::new);
+    }
+
+    @ApiStatus.Internal
+    public ListenerStats listener(String eventName, IEventListener listener) {
+        ListenerStats stats = listenerCache.get(listener);
+        if (stats == null) {
+            String creator;
+            String file = null;
+            if (listener instanceof FJsMacros.ScriptEventListener) {
+                FJsMacros.ScriptEventListener l = (FJsMacros.ScriptEventListener) listener;
+                creator = l.getCreatorName();
+                BaseScriptContext<?> ctx = l.getCtx();
+                if (ctx != null && ctx.getFile() != null) {
+                    file = ctx.getFile().getPath();
+                }
+            } else if (listener instanceof BaseListener) {
+                creator = "trigger";
+                file = ((BaseListener) listener).getRawTrigger().scriptFile;
+            } else {
+                creator = listener.getClass().getName();
+            }
+            String key = eventName + "\0" + creator + "\0" + file;
+            String f = file;
+            stats = listeners.computeIfAbsent(key, k -> new ListenerStats(eventName, creator, f));
+            listenerCache.put(listener, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * @return stats for every event that was triggered while enabled, slowest total dispatch first.
+     */
+    public List<EventStats> getEvents() {
+        List<EventStats> list = new ArrayList<>(events.values());
+        list.sort(Comparator.comparingLong((EventStats e) -> e.dispatch.getTotal()).reversed());
+        return list;
+    }
+
+    /**
+     * @param eventName
+     * @return
+     */
+    @Nullable
+    public EventStats getEvent(String eventName) {
+        return events.get(eventName);
+    }
+
+    /**
+     * @return stats for every listener that was reached while enabled, most time spent on the triggering thread first.
+     */
+    public List<ListenerStats> getListeners() {
+        List<ListenerStats> list = new ArrayList<>(listeners.values());
+        list.sort(Comparator.comparingLong(ListenerStats::getTriggerThreadTime).reversed());
+        return list;
+    }
+
+    public String toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("startTime", startTime);
+        json.addProperty("enabled", enabled);
+        JsonArray eventArray = new JsonArray();
+        for (EventStats e : getEvents()) {
+            eventArray.add(e.toJson());
+        }
+        json.add("events", eventArray);
+        JsonArray listenerArray = new JsonArray();
+        for (ListenerStats l : getListeners()) {
+            listenerArray.add(l.toJson());
+        }
+        json.add("listeners", listenerArray);
+        return new GsonBuilder().setPrettyPrinting().create().toJson(json);
+    }
+
+    /**
+     * write {@link #toJson()} to a file.
+     *
+     * @param path relative to the macro folder
+     * @return the file written to
+     * @throws IOException
+     */
+    public File dump(String path) throws IOException {
+        File file = new File(Core.getInstance().config.macroFolder, path);
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        Files.write(file.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DispatchProfiler:{\"enabled\": %s, \"events\": %d, \"listeners\": %d}", enabled, events.size(), listeners.size());
+    }
+
+    public static class EventStats {
+        public final String event;
+        /**
+         * time spent in {@code triggerEvent} for this event, including joined listeners.
+         */
+        public final LatencyHistogram dispatch = new LatencyHistogram();
+
+        EventStats(String event) {
+            this.event = event;
+        }
+
+        public long getCount() {
+            return dispatch.getCount();
+        }
+
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("event", event);
+            json.add("dispatch", dispatch.toJson());
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("EventStats:{\"event\": \"%s\", \"dispatch\": %s}", event, dispatch);
+        }
+
+    }
+
+    public static class ListenerStats {
+        public final String event;
+        public final String creator;
+        @Nullable
+        public final String file;
+        private final LongAdder invocations = new LongAdder();
+        /**
+         * time spent in the listener's {@code trigger} on the triggering thread.
+         */
+        public final LatencyHistogram trigger = new LatencyHistogram();
+        /**
+         * time the triggering thread waited for a joined listener to finish.
+         */
+        public final LatencyHistogram blocked = new LatencyHistogram();
+        /**
+         * time between the event being triggered and the listener's callback starting on its own thread.
+         */
+        public final LatencyHistogram queueDelay = new LatencyHistogram();
+        /**
+         * time the listener's callback took to run.
+         */
+        public final LatencyHistogram execution = new LatencyHistogram();
+
+        ListenerStats(String event, String creator, @Nullable String file) {
+            this.event = event;
+            this.creator = creator;
+            this.file = file;
+        }
+
+        @ApiStatus.Internal
+        public void recordTrigger(long nanos) {
+            invocations.increment();
+            trigger.record(nanos);
+        }
+
+        /**
+         * record a callback that was submitted at {@code queuedAt}, started at {@code start} and just finished.
+         */
+        @ApiStatus.Internal
+        public void recordRun(long queuedAt, long start) {
+            queueDelay.record(start - queuedAt);
+            execution.record(System.nanoTime() - start);
+        }
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        /**
+         * @return total nanoseconds this listener held up the triggering thread, trigger plus blocked time.
+         */
+        public long getTriggerThreadTime() {
+            return trigger.getTotal() + blocked.getTotal();
+        }
+
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("event", event);
+            json.addProperty("creator", creator);
+            json.addProperty("file", file);
+            json.addProperty("invocations", getInvocations());
+            json.add("trigger", trigger.toJson());
+            json.add("blocked", blocked.toJson());
+            json.add("queueDelay", queueDelay.toJson());
+            json.add("execution", execution.toJson());
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ListenerStats:{\"event\": \"%s\", \"creator\": \"%s\", \"file\": \"%s\", \"invocations\": %d}", event, creator, file, getInvocations());
+        }
+
+    }
+
+}
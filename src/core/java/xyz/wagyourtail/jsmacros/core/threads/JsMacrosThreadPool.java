@@ -1,105 +1,376 @@
 package xyz.wagyourtail.jsmacros.core.threads;
 
+import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
+
 import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
+/**
+ * Pool of reusable threads for script and listener tasks.
+ * <p>
+ * Tasks are handed directly to an idle thread so callers know which thread will run the task before it starts
+ * (this is relied on for {@link xyz.wagyourtail.jsmacros.core.language.EventContainer#setLockThread(Thread)}).
+ * If no thread is idle a new one is created, after the task finishes the thread goes back to the pool unless
+ * {@link #getMaxSize()} idle threads are already waiting. Threads above {@link #getCoreSize()} are retired after
+ * being idle for a while.
+ * <p>
+ * The number of live threads isn't capped, {@link #getMaxSize()} only limits the idle ones. Joined events block the
+ * thread that fired them until the script is done, so a hard cap could leave every thread waiting on a task that can't start.
+ * <p>
+ * In virtual thread mode every task gets a fresh virtual thread instead.
+ */
 public class JsMacrosThreadPool {
+    private static final String IDLE_THREAD_NAME = "JsMacros Pool Thread";
+    private static final long KEEP_ALIVE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
     private final ArrayDeque<PoolThread> freeThreads = new ArrayDeque<>();
+    // guarded by freeThreads
+    private int liveThreads = 0;
+
+    private volatile int coreSize;
+    private volatile int maxSize;
+    private volatile boolean virtualThreads;
 
-    public final int maxFreeThreads;
+    private final AtomicLong createdThreads = new AtomicLong();
+    private final AtomicLong submittedTasks = new AtomicLong();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final AtomicInteger activeTasks = new AtomicInteger();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
 
     public JsMacrosThreadPool() {
-        this(Runtime.getRuntime().availableProcessors() * 3);
+        this(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors() * 3, false);
     }
 
     public JsMacrosThreadPool(int maxFreeThreads) {
-        this.maxFreeThreads = maxFreeThreads;
-        for (int i = 0; i < maxFreeThreads; i++) {
-            PoolThread t = new PoolThread();
-            t.start();
-            freeThreads.addLast(t);
+        this(maxFreeThreads, maxFreeThreads, false);
+    }
+
+    public JsMacrosThreadPool(int coreSize, int maxSize, boolean virtualThreads) {
+        this.coreSize = Math.max(0, coreSize);
+        this.maxSize = Math.max(this.coreSize, maxSize);
+        this.virtualThreads = virtualThreads;
+        if (!virtualThreads) {
+            prestartCoreThreads();
         }
-        runTask(() -> {
-            while (true) {
-                synchronized (freeThreads) {
-                    try {
-                        freeThreads.wait();
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
-                    }
-                    if (freeThreads.size() < maxFreeThreads) {
-                        PoolThread t = new PoolThread();
-                        t.start();
-                        freeThreads.addLast(t);
-                    }
-                }
-            }
-        });
     }
 
-    public Thread runTask(Runnable task) {
-        PoolThread t;
+    private void prestartCoreThreads() {
         synchronized (freeThreads) {
-            if (freeThreads.isEmpty()) {
-                // this shouldn't happen, I guess if called too fast...
-                t = new PoolThread();
-                t.runTask(task);
-                t.start();
-            } else {
-                t = freeThreads.removeLast();
-                freeThreads.notify();
-                t.runTask(task);
+            while (liveThreads < coreSize) {
+                freeThreads.addLast(newPoolThread());
             }
         }
+    }
+
+    // must hold freeThreads
+    private PoolThread newPoolThread() {
+        PoolThread t = new PoolThread(this);
+        liveThreads++;
+        createdThreads.incrementAndGet();
+        t.start();
         return t;
     }
 
+    public Thread runTask(Runnable task) {
+        return runTask(task, null);
+    }
+
+    /**
+     * @param task
+     * @param beforeRunTask called with the thread that will run {@code task} before the task starts.
+     * @return the thread the task was handed to.
+     */
     public Thread runTask(Runnable task, Consumer<Thread> beforeRunTask) {
+        submittedTasks.incrementAndGet();
+        queuedTasks.incrementAndGet();
+        long queuedAt = System.nanoTime();
+        if (virtualThreads) {
+            Thread t = Thread.ofVirtual().name(IDLE_THREAD_NAME).unstarted(() -> runWorker(task, queuedAt));
+            createdThreads.incrementAndGet();
+            if (beforeRunTask != null) {
+                beforeRunTask.accept(t);
+            }
+            t.start();
+            return t;
+        }
         PoolThread t;
         synchronized (freeThreads) {
-            if (freeThreads.isEmpty()) {
-                // this shouldn't happen, I guess if called too fast...
-                t = new PoolThread();
-                beforeRunTask.accept(t);
-                t.runTask(task);
-                t.start();
-            } else {
-                t = freeThreads.removeLast();
-                freeThreads.notify();
-                beforeRunTask.accept(t);
-                t.runTask(task);
+            t = freeThreads.pollLast();
+            if (t == null) {
+                t = newPoolThread();
             }
         }
+        if (beforeRunTask != null) {
+            beforeRunTask.accept(t);
+        }
+        t.runTask(task, queuedAt);
         return t;
     }
 
+    private void runWorker(Runnable task, long queuedAt) {
+        long start = System.nanoTime();
+        long queued = start - queuedAt;
+        queuedTasks.decrementAndGet();
+        activeTasks.incrementAndGet();
+        totalQueueNanos.addAndGet(queued);
+        maxQueueNanos.accumulateAndGet(queued, Math::max);
+        try {
+            task.run();
+        } catch (Throwable ignored) {
+        } finally {
+            activeTasks.decrementAndGet();
+            completedTasks.incrementAndGet();
+            totalRunNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return {@code false} if the thread should exit instead of going back to the pool.
+     */
+    private boolean release(PoolThread t) {
+        synchronized (freeThreads) {
+            if (virtualThreads || freeThreads.size() >= maxSize) {
+                liveThreads--;
+                return false;
+            }
+            freeThreads.addLast(t);
+            return true;
+        }
+    }
+
+    /**
+     * @return {@code true} if the idle thread was removed from the pool and should exit.
+     */
+    private boolean retireIdle(PoolThread t) {
+        synchronized (freeThreads) {
+            if (liveThreads <= coreSize && !virtualThreads) {
+                return false;
+            }
+            // already claimed by runTask, a task is on its way.
+            if (!freeThreads.remove(t)) {
+                return false;
+            }
+            liveThreads--;
+            return true;
+        }
+    }
+
+    public int getCoreSize() {
+        return coreSize;
+    }
+
+    /**
+     * @return maximum number of idle threads kept in the pool, not a limit on running threads.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @param coreSize number of threads kept alive even when idle.
+     */
+    public void setCoreSize(int coreSize) {
+        this.coreSize = Math.max(0, coreSize);
+        if (maxSize < this.coreSize) {
+            maxSize = this.coreSize;
+        }
+        if (!virtualThreads) {
+            prestartCoreThreads();
+        }
+    }
+
+    /**
+     * @param maxSize maximum number of idle threads kept in the pool.
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(coreSize, maxSize);
+    }
+
+    /**
+     * switch between pooled platform threads and a fresh virtual thread per task, idle platform threads are
+     * retired once they time out.
+     *
+     * @param virtualThreads
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        if (!virtualThreads) {
+            prestartCoreThreads();
+        }
+    }
+
+    /**
+     * @return number of threads created since startup, in virtual thread mode this is one per task.
+     */
+    public long getCreatedThreads() {
+        return createdThreads.get();
+    }
+
+    public long getSubmittedTasks() {
+        return submittedTasks.get();
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks.get();
+    }
+
+    /**
+     * @return tasks that have been submitted but not started running yet.
+     */
+    public int getQueuedTasks() {
+        return queuedTasks.get();
+    }
+
+    public int getActiveTasks() {
+        return activeTasks.get();
+    }
+
+    public int getIdleThreads() {
+        synchronized (freeThreads) {
+            return freeThreads.size();
+        }
+    }
+
+    public int getLiveThreads() {
+        synchronized (freeThreads) {
+            return liveThreads;
+        }
+    }
+
+    /**
+     * @return average time between submitting a task and it starting, in nanoseconds.
+     */
+    public double getAverageQueueLatency() {
+        long completed = completedTasks.get();
+        return completed == 0 ? 0 : (double) totalQueueNanos.get() / completed;
+    }
+
+    /**
+     * @return longest time between submitting a task and it starting, in nanoseconds.
+     */
+    public long getMaxQueueLatency() {
+        return maxQueueNanos.get();
+    }
+
+    /**
+     * @return average task run time, in nanoseconds.
+     */
+    public double getAverageRunTime() {
+        long completed = completedTasks.get();
+        return completed == 0 ? 0 : (double) totalRunNanos.get() / completed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JsMacrosThreadPool:{\"live\": %d, \"idle\": %d, \"active\": %d, \"queued\": %d, \"created\": %d, \"completed\": %d, \"virtual\": %s}",
+                getLiveThreads(), getIdleThreads(), getActiveTasks(), getQueuedTasks(), getCreatedThreads(), getCompletedTasks(), virtualThreads);
+    }
+
     public static class PoolThread extends Thread {
+        private final JsMacrosThreadPool pool;
+        // contexts this thread is bound to, so a task that leaks a binding can't get the next task interrupted.
+        private final Set<BaseScriptContext<?>> boundContexts = ConcurrentHashMap.newKeySet();
         private Runnable task;
+        private long queuedAt;
 
-        public PoolThread() {
-            super("JsMacros Pool Thread");
+        public PoolThread(JsMacrosThreadPool pool) {
+            super(IDLE_THREAD_NAME);
+            this.pool = pool;
             setDaemon(true);
         }
 
-        public void runTask(Runnable task) {
+        /**
+         * called by {@link BaseScriptContext#bindThread(Thread)}.
+         *
+         * @since 2.0.1
+         */
+        public void onBind(BaseScriptContext<?> ctx) {
+            boundContexts.add(ctx);
+        }
+
+        /**
+         * called by {@link BaseScriptContext#unbindThread(Thread)}.
+         *
+         * @since 2.0.1
+         */
+        public void onUnbind(BaseScriptContext<?> ctx) {
+            boundContexts.remove(ctx);
+        }
+
+        /**
+         * @return contexts this thread is bound to right now.
+         * @since 2.0.1
+         */
+        public Set<BaseScriptContext<?>> getBoundContexts() {
+            return Collections.unmodifiableSet(boundContexts);
+        }
+
+        public void runTask(Runnable task, long queuedAt) {
             synchronized (this) {
                 this.setContextClassLoader(Thread.currentThread().getContextClassLoader());
                 this.task = task;
+                this.queuedAt = queuedAt;
                 notify();
             }
         }
 
         @Override
         public void run() {
-            try {
+            while (true) {
+                Runnable current;
+                long currentQueuedAt;
                 synchronized (this) {
+                    long deadline = System.nanoTime() + KEEP_ALIVE_NANOS;
                     while (task == null) {
-                        wait();
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            if (pool.retireIdle(this)) {
+                                return;
+                            }
+                            deadline = System.nanoTime() + KEEP_ALIVE_NANOS;
+                            continue;
+                        }
+                        try {
+                            wait(TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+                        } catch (InterruptedException ignored) {
+                            // stale interrupt from a context this thread was bound to, idle threads don't care.
+                        }
                     }
+                    current = task;
+                    currentQueuedAt = queuedAt;
+                    task = null;
+                }
+                pool.runWorker(current, currentQueuedAt);
+
+                // reset anything the task may have changed before handing the thread to the next one.
+                // contexts only interrupt threads bound to them, so once unbound no late interrupt can arrive
+                // and clearing the flag after that keeps the next task clean.
+                for (BaseScriptContext<?> ctx : boundContexts.toArray(new BaseScriptContext<?>[0])) {
+                    ctx.unbindThreadIfBound(this);
+                }
+                boundContexts.clear();
+                Thread.interrupted();
+                setName(IDLE_THREAD_NAME);
+                setPriority(NORM_PRIORITY);
+                if (!pool.release(this)) {
+                    return;
                 }
-                task.run();
-            } catch (Throwable ignored) {
             }
         }
+
     }
+
 }
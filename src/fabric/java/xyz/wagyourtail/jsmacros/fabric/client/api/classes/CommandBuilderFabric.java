@@ -105,6 +105,7 @@ public class CommandBuilderFabric extends CommandBuilder {
             }
         }
         commands.put(name, head);
+        registered.put(name, this);
         return this;
     }
 
@@ -117,6 +118,7 @@ public class CommandBuilderFabric extends CommandBuilder {
             CommandNodeAccessor.remove(cd.getRoot(), name);
         }
         commands.remove(name);
+        registered.remove(name);
         return this;
     }
 
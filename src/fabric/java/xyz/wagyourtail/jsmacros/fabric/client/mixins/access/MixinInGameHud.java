@@ -11,6 +11,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import xyz.wagyourtail.jsmacros.client.api.classes.render.Draw2D;
 import xyz.wagyourtail.jsmacros.client.api.classes.render.IDraw2D;
 import xyz.wagyourtail.jsmacros.client.api.library.impl.FHud;
+import xyz.wagyourtail.jsmacros.client.gui.overlays.ProfilerHud;
 
 import java.util.Comparator;
 import java.util.stream.Collectors;
@@ -25,6 +26,7 @@ class MixinInGameHud {
             } catch (Throwable ignored) {
             }
         }
+        ProfilerHud.render(context);
     }
 
 }
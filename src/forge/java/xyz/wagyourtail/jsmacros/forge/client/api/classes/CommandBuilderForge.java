@@ -108,6 +108,7 @@ public class CommandBuilderForge extends CommandBuilder {
             }
         }
         commands.put(name, head);
+        registered.put(name, this);
         return this;
     }
 
@@ -120,6 +121,7 @@ public class CommandBuilderForge extends CommandBuilder {
             CommandNodeAccessor.remove(cd.getRoot(), name);
         }
         commands.remove(name);
+        registered.remove(name);
         return this;
     }
 
@@ -16,6 +16,7 @@ import xyz.wagyourtail.jsmacros.client.api.classes.render.Draw3D;
 import xyz.wagyourtail.jsmacros.client.api.classes.render.IDraw2D;
 import xyz.wagyourtail.jsmacros.client.api.classes.render.ScriptScreen;
 import xyz.wagyourtail.jsmacros.client.api.library.impl.FHud;
+import xyz.wagyourtail.jsmacros.client.gui.overlays.ProfilerHud;
 import xyz.wagyourtail.jsmacros.client.tick.TickBasedEvents;
 import xyz.wagyourtail.jsmacros.forge.client.api.classes.CommandBuilderForge;
 
@@ -90,6 +91,7 @@ public class ForgeEvents {
             } catch (Throwable ignored) {
             }
         }
+        ProfilerHud.render(drawContext);
     }
 
     public static void onRegisterGuiOverlays(RegisterGuiLayersEvent ev) {
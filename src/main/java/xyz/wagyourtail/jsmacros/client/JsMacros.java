@@ -18,6 +18,7 @@ import xyz.wagyourtail.jsmacros.client.config.Profile;
 import xyz.wagyourtail.jsmacros.client.event.EventRegistry;
 import xyz.wagyourtail.jsmacros.client.gui.screens.KeyMacrosScreen;
 import xyz.wagyourtail.jsmacros.client.movement.MovementQueue;
+import xyz.wagyourtail.jsmacros.client.util.ContextResourceTrackers;
 import xyz.wagyourtail.jsmacros.core.Core;
 import xyz.wagyourtail.wagyourgui.BaseScreen;
 
@@ -43,6 +44,11 @@ public class JsMacros {
         }
 
         // HINT TO EXTENSION DEVS: Use this init to add your shit before any scripts are actually run
+
+        ContextResourceTrackers.register(core.diagnostics);
+
+        // loads while the rest of the game starts, deferredInit waits for it.
+        core.extensions.loadExtensionsAsync();
     }
 
     public static void onInitializeClient() {
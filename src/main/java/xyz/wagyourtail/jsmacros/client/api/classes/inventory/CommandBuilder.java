@@ -11,6 +11,7 @@ import net.minecraft.command.CommandSource;
 import net.minecraft.command.argument.*;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
 import xyz.wagyourtail.jsmacros.client.api.helpers.CommandContextHelper;
 import xyz.wagyourtail.jsmacros.client.api.helpers.SuggestionsBuilderHelper;
 import xyz.wagyourtail.jsmacros.client.api.helpers.world.BlockPosHelper;
@@ -21,10 +22,16 @@ import xyz.wagyourtail.jsmacros.core.classes.Registrable;
 import xyz.wagyourtail.jsmacros.core.config.CoreConfigV2;
 import xyz.wagyourtail.jsmacros.core.event.BaseEvent;
 import xyz.wagyourtail.jsmacros.core.event.IEventListener;
+import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
 import xyz.wagyourtail.jsmacros.core.language.EventContainer;
+import xyz.wagyourtail.jsmacros.core.profiler.ContextDiagnostics;
 
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
@@ -36,6 +43,11 @@ import java.util.stream.Collectors;
  */
 @SuppressWarnings("unused")
 public abstract class CommandBuilder implements Registrable<CommandBuilder> {
+    /**
+     * currently registered builders by command name.
+     */
+    protected static final Map<String, CommandBuilder> registered = new ConcurrentHashMap<>();
+    private final WeakReference<BaseScriptContext<?>> owner = new WeakReference<>(ContextDiagnostics.currentContext());
 
     protected abstract void argument(String name, Supplier<ArgumentType<?>> type);
 
@@ -435,6 +447,23 @@ public abstract class CommandBuilder implements Registrable<CommandBuilder> {
 
     }
 
+    /**
+     * @return the script context that created this, {@code null} if it wasn't created by a script or the context is gone.
+     * @since 2.0.1
+     */
+    @Nullable
+    public BaseScriptContext<?> getOwner() {
+        return owner.get();
+    }
+
+    /**
+     * @return builders whose commands are currently registered.
+     * @since 2.0.1
+     */
+    public static Collection<CommandBuilder> getRegistered() {
+        return Collections.unmodifiableCollection(registered.values());
+    }
+
     @Override
     public abstract CommandBuilder register();
 
@@ -15,7 +15,10 @@ import xyz.wagyourtail.jsmacros.client.api.library.impl.FHud;
 import xyz.wagyourtail.jsmacros.core.Core;
 import xyz.wagyourtail.jsmacros.core.MethodWrapper;
 import xyz.wagyourtail.jsmacros.core.classes.Registrable;
+import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
+import xyz.wagyourtail.jsmacros.core.profiler.ContextDiagnostics;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
@@ -32,6 +35,7 @@ public class Draw2D implements IDraw2D<Draw2D>, Registrable<Draw2D> {
     public IntSupplier heightSupplier;
     public int zIndex;
     public boolean visible = true;
+    private final WeakReference<BaseScriptContext<?>> owner = new WeakReference<>(ContextDiagnostics.currentContext());
 
     /**
      * @since 1.0.5
@@ -633,6 +637,15 @@ public class Draw2D implements IDraw2D<Draw2D>, Registrable<Draw2D> {
         return this;
     }
 
+    /**
+     * @return the script context that created this, {@code null} if it wasn't created by a script or the context is gone.
+     * @since 2.0.1
+     */
+    @Nullable
+    public BaseScriptContext<?> getOwner() {
+        return owner.get();
+    }
+
     /**
      * register so the overlay actually renders
      *
@@ -8,6 +8,7 @@ import net.minecraft.client.render.GameRenderer;
 import net.minecraft.client.render.Tessellator;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.util.math.Vec3d;
+import org.jetbrains.annotations.Nullable;
 import xyz.wagyourtail.doclet.DocletIgnore;
 import xyz.wagyourtail.jsmacros.client.api.classes.math.Pos2D;
 import xyz.wagyourtail.jsmacros.client.api.classes.math.Pos3D;
@@ -16,7 +17,10 @@ import xyz.wagyourtail.jsmacros.client.api.helpers.world.BlockPosHelper;
 import xyz.wagyourtail.jsmacros.client.api.helpers.world.entity.EntityHelper;
 import xyz.wagyourtail.jsmacros.client.api.library.impl.FHud;
 import xyz.wagyourtail.jsmacros.core.classes.Registrable;
+import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
+import xyz.wagyourtail.jsmacros.core.profiler.ContextDiagnostics;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 
 /**
@@ -28,6 +32,7 @@ import java.util.*;
 @SuppressWarnings("unused")
 public class Draw3D implements Registrable<Draw3D> {
     private final ArrayList<RenderElement3D> elements = new ArrayList<>();
+    private final WeakReference<BaseScriptContext<?>> owner = new WeakReference<>(ContextDiagnostics.currentContext());
 
     /**
      * @return
@@ -671,6 +676,15 @@ public class Draw3D implements Registrable<Draw3D> {
         return new Surface.Builder(this);
     }
 
+    /**
+     * @return the script context that created this, {@code null} if it wasn't created by a script or the context is gone.
+     * @since 2.0.1
+     */
+    @Nullable
+    public BaseScriptContext<?> getOwner() {
+        return owner.get();
+    }
+
     /**
      * register so it actually shows up
      *
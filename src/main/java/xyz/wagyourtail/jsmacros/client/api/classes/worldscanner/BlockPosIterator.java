@@ -0,0 +1,162 @@
+package xyz.wagyourtail.jsmacros.client.api.classes.worldscanner;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import xyz.wagyourtail.jsmacros.client.api.helpers.world.BlockPosHelper;
+
+import java.util.NoSuchElementException;
+
+/**
+ * iterates the positions a {@link WorldScanner} matches in an area, packed like {@link BlockPos#asLong()}.
+ * <p>
+ * the area is scanned one chunk section at a time while iterating, so stopping early, or setting a {@link #limit(int)},
+ * skips scanning the rest of it. this isn't thread safe.
+ *
+ * @see WorldScanner#iterateChunkRange(int, int, int)
+ * @see WorldScanner#iterateCubeArea(int, int, int, int, int, int)
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class BlockPosIterator implements LongIterator {
+    private final WorldScanner scanner;
+    private final World world;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final WorldBlockIndex.PositionConsumer collector;
+    private final LongArrayList buffer = new LongArrayList();
+    private int bufferPos = 0;
+    private int chunkX;
+    private int chunkZ;
+    private int sectionY;
+    private int limit = Integer.MAX_VALUE;
+    private int returned = 0;
+    private int scannedSections = 0;
+
+    BlockPosIterator(WorldScanner scanner, World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.scanner = scanner;
+        this.world = world;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.chunkX = minY > maxY ? (maxX >> 4) + 1 : minX >> 4;
+        this.chunkZ = minZ >> 4;
+        this.sectionY = minY & ~15;
+        this.collector = (x, y, z) -> {
+            if (minX <= x && x <= maxX && minY <= y && y <= maxY && minZ <= z && z <= maxZ) {
+                buffer.add(BlockPos.asLong(x, y, z));
+            }
+        };
+    }
+
+    /**
+     * stop after {@code n} positions, the rest of the area isn't scanned.
+     *
+     * @param n
+     * @return self for chaining.
+     */
+    public BlockPosIterator limit(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("limit cannot be negative!");
+        }
+        this.limit = n;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (returned >= limit) {
+            return false;
+        }
+        if (bufferPos >= buffer.size()) {
+            fill();
+        }
+        return bufferPos < buffer.size();
+    }
+
+    /**
+     * @return the next position, packed like {@link BlockPos#asLong()}.
+     */
+    @Override
+    public long nextLong() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        returned++;
+        return buffer.getLong(bufferPos++);
+    }
+
+    /**
+     * @return the next position.
+     */
+    public BlockPosHelper nextPos() {
+        return unpack(nextLong());
+    }
+
+    /**
+     * @return the remaining positions, packed like {@link BlockPos#asLong()}.
+     */
+    public long[] toLongArray() {
+        return toLongList().toLongArray();
+    }
+
+    /**
+     * @return the remaining positions, packed like {@link BlockPos#asLong()}.
+     */
+    public LongArrayList toLongList() {
+        LongArrayList list = new LongArrayList();
+        while (hasNext()) {
+            list.add(nextLong());
+        }
+        return list;
+    }
+
+    /**
+     * @return number of chunk sections scanned so far.
+     */
+    public int getScannedSections() {
+        return scannedSections;
+    }
+
+    private void fill() {
+        buffer.clear();
+        bufferPos = 0;
+        int maxChunkX = maxX >> 4;
+        while (buffer.isEmpty() && chunkX <= maxChunkX) {
+            if (sectionY > maxY || !world.isChunkLoaded(chunkX, chunkZ)) {
+                sectionY = minY & ~15;
+                if (++chunkZ > maxZ >> 4) {
+                    chunkZ = minZ >> 4;
+                    chunkX++;
+                }
+                continue;
+            }
+            scanner.forEachPosition(new ChunkPos(chunkX, chunkZ), Math.max(sectionY, minY), Math.min(sectionY + 15, maxY), collector);
+            sectionY += 16;
+            scannedSections++;
+        }
+    }
+
+    /**
+     * @param packed a position packed like {@link BlockPos#asLong()}
+     * @return the position.
+     */
+    public static BlockPosHelper unpack(long packed) {
+        return new BlockPosHelper(BlockPos.fromLong(packed));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BlockPosIterator:{\"from\": [%d, %d, %d], \"to\": [%d, %d, %d], \"returned\": %d, \"scannedSections\": %d}", minX, minY, minZ, maxX, maxY, maxZ, returned, scannedSections);
+    }
+
+}
@@ -0,0 +1,104 @@
+package xyz.wagyourtail.jsmacros.client.api.classes.worldscanner;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * a block state filter that was run once for every block state, so testing a state is a single bit lookup by its raw id.
+ * <p>
+ * {@link WorldScannerBuilder}s with the same commands share one compiled filter, so building a scanner from one again
+ * doesn't run the filter again. scanners sharing a compiled filter also share their {@link WorldBlockIndex}.
+ *
+ * @see WorldScanner#getCompiledFilter()
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public final class CompiledBlockFilter {
+    private static final int MAX_CACHED = 64;
+    private static final Map<String, CompiledBlockFilter> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledBlockFilter> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private final String key;
+    private final BitSet states;
+    private final int stateCount;
+
+    private CompiledBlockFilter(String key, Function<BlockState, Boolean> filter) {
+        this.key = key;
+        this.stateCount = Block.STATE_IDS.size();
+        this.states = new BitSet(stateCount);
+        for (int i = 0; i < stateCount; i++) {
+            BlockState state = Block.STATE_IDS.get(i);
+            if (state != null && filter.apply(state)) {
+                states.set(i);
+            }
+        }
+    }
+
+    /**
+     * @param key    describes the filter, filters with the same key must match the same states.
+     * @param filter only run if there's no compiled filter for the key yet.
+     * @return the compiled filter for the key.
+     */
+    static CompiledBlockFilter get(String key, Function<BlockState, Boolean> filter) {
+        CompiledBlockFilter compiled;
+        synchronized (cache) {
+            compiled = cache.get(key);
+        }
+        if (compiled != null && compiled.stateCount == Block.STATE_IDS.size()) {
+            return compiled;
+        }
+        // compile outside the lock, so other scripts can still get their filters meanwhile.
+        compiled = new CompiledBlockFilter(key, filter);
+        synchronized (cache) {
+            CompiledBlockFilter other = cache.get(key);
+            if (other != null && other.stateCount == compiled.stateCount) {
+                return other;
+            }
+            cache.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * forget all compiled filters, scanners that were already built keep theirs.
+     */
+    public static void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public boolean test(BlockState state) {
+        int id = Block.STATE_IDS.getRawId(state);
+        return id >= 0 && states.get(id);
+    }
+
+    /**
+     * @return the commands the filter was built from.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the amount of block states matching the filter.
+     */
+    public int getMatchingCount() {
+        return states.cardinality();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompiledBlockFilter:{\"key\": \"%s\", \"matching\": %d, \"states\": %d}", key, getMatchingCount(), stateCount);
+    }
+
+}
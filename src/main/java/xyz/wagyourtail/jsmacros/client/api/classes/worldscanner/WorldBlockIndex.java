@@ -0,0 +1,371 @@
+package xyz.wagyourtail.jsmacros.client.api.classes.worldscanner;
+
+import it.unimi.dsi.fastutil.shorts.ShortIterator;
+import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * remembers where the blocks matching a {@link WorldScanner}'s filter are, per chunk section, so repeated scans of the
+ * same area only cost as much as the number of results.
+ * <p>
+ * a chunk is scanned the first time it's asked for and then kept up to date from block update packets,
+ * chunk loads drop the chunk so it's scanned again on the next query, and unloads forget it.
+ * once the index holds more than its position limit the least recently queried chunks are dropped.
+ *
+ * @see WorldScanner#useIndex()
+ * @since 2.0.1
+ */
+@SuppressWarnings("unused")
+public class WorldBlockIndex {
+    private static final Set<WorldBlockIndex> indexes = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private static volatile boolean anyIndex = false;
+
+    private final WorldScanner scanner;
+    private final WeakReference<World> world;
+    private final int maxPositions;
+    private final LinkedHashMap<Long, ChunkEntry> chunks = new LinkedHashMap<>(64, 0.75f, true);
+    // chunks being scanned right now, true if they changed since the scan started.
+    private final Map<Long, Boolean> building = new HashMap<>();
+    private long positions = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    // scanners using this index, it's only shared between scanners with the same compiled filter
+    private int users = 1;
+
+    WorldBlockIndex(WorldScanner scanner, World world, int maxPositions) {
+        if (maxPositions < 1) {
+            throw new IllegalArgumentException("maxPositions must be at least 1");
+        }
+        this.scanner = scanner;
+        this.world = new WeakReference<>(world);
+        this.maxPositions = maxPositions;
+        indexes.add(this);
+        anyIndex = true;
+    }
+
+    /**
+     * @return an open index for scanners with the same compiled filter as {@code scanner}, or a new one.
+     */
+    static WorldBlockIndex acquire(WorldScanner scanner, World world, int maxPositions) {
+        CompiledBlockFilter filter = scanner.getCompiledFilter();
+        if (filter != null) {
+            synchronized (indexes) {
+                for (WorldBlockIndex index : indexes) {
+                    if (index.isFor(world) && index.maxPositions == maxPositions && index.scanner.getCompiledFilter() == filter && index.retain()) {
+                        return index;
+                    }
+                }
+            }
+        }
+        return new WorldBlockIndex(scanner, world, maxPositions);
+    }
+
+    private synchronized boolean retain() {
+        if (users == 0) {
+            return false;
+        }
+        users++;
+        return true;
+    }
+
+    /**
+     * @param world
+     * @return if this index follows that world.
+     */
+    public boolean isFor(World world) {
+        return this.world.get() == world;
+    }
+
+    /**
+     * pass every indexed match in the chunk between {@code minY} and {@code maxY} to {@code consumer}, scanning the chunk first if it isn't indexed yet.
+     */
+    void forEach(Chunk chunk, int minY, int maxY, PositionConsumer consumer) {
+        ChunkPos pos = chunk.getPos();
+        long key = pos.toLong();
+        synchronized (this) {
+            ChunkEntry entry = chunks.get(key);
+            if (entry != null) {
+                hits++;
+                entry.forEach(pos, minY, maxY, consumer);
+                return;
+            }
+            misses++;
+            building.put(key, Boolean.FALSE);
+        }
+
+        // scan without holding the lock, so block updates on the render thread don't wait for it.
+        ChunkEntry entry = new ChunkEntry(chunk.getBottomY(), chunk.getSectionArray().length);
+        scanner.forEachMatch(chunk, Integer.MIN_VALUE, Integer.MAX_VALUE, (yOffset, place) -> entry.add((yOffset - entry.bottomY) >> 4, (short) place));
+
+        synchronized (this) {
+            // a chunk that changed while it was scanned is answered from the scan but not kept.
+            if (Boolean.FALSE.equals(building.remove(key))) {
+                ChunkEntry old = chunks.put(key, entry);
+                positions += entry.size - (old == null ? 0 : old.size);
+                evict(key);
+            }
+            entry.forEach(pos, minY, maxY, consumer);
+        }
+    }
+
+    private void evict(long keep) {
+        Iterator<Map.Entry<Long, ChunkEntry>> it = chunks.entrySet().iterator();
+        while (positions > maxPositions && it.hasNext()) {
+            Map.Entry<Long, ChunkEntry> eldest = it.next();
+            if (eldest.getKey() == keep) {
+                continue;
+            }
+            positions -= eldest.getValue().size;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private synchronized void dropChunk(long key) {
+        if (building.containsKey(key)) {
+            building.put(key, Boolean.TRUE);
+        }
+        ChunkEntry entry = chunks.remove(key);
+        if (entry != null) {
+            positions -= entry.size;
+        }
+    }
+
+    private synchronized void update(BlockPos pos, BlockState state) {
+        long key = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+        ChunkEntry entry = chunks.get(key);
+        if (entry == null) {
+            if (building.containsKey(key)) {
+                building.put(key, Boolean.TRUE);
+            }
+            return;
+        }
+        int section = (pos.getY() - entry.bottomY) >> 4;
+        if (section < 0 || section >= entry.sections.length) {
+            return;
+        }
+        Boolean matches = scanner.getCachedFilterResult(state);
+        if (matches == null) {
+            // don't run a script filter on the render thread, scan the chunk again when it's next asked for.
+            dropChunk(key);
+            return;
+        }
+        short place = (short) ((pos.getY() & 15) << 8 | (pos.getZ() & 15) << 4 | pos.getX() & 15);
+        int before = entry.size;
+        if (matches) {
+            entry.add(section, place);
+        } else {
+            entry.remove(section, place);
+        }
+        positions += entry.size - before;
+    }
+
+    /**
+     * forget everything, chunks are scanned again when they're next asked for.
+     */
+    public synchronized void invalidate() {
+        building.replaceAll((k, v) -> Boolean.TRUE);
+        chunks.clear();
+        positions = 0;
+    }
+
+    /**
+     * stop receiving updates and free the index once no scanner shares it anymore, the scanner goes back to scanning.
+     */
+    public void close() {
+        synchronized (this) {
+            if (users == 0 || --users > 0) {
+                return;
+            }
+        }
+        indexes.remove(this);
+        invalidate();
+    }
+
+    /**
+     * @return number of scanners sharing this index.
+     */
+    public synchronized int getUsers() {
+        return users;
+    }
+
+    /**
+     * @return number of chunks currently indexed.
+     */
+    public synchronized int getIndexedChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * @return number of matching positions currently indexed.
+     */
+    public synchronized long getPositionCount() {
+        return positions;
+    }
+
+    public int getMaxPositions() {
+        return maxPositions;
+    }
+
+    /**
+     * @return chunk queries answered from the index.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return chunk queries that had to scan the chunk.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return chunks dropped to stay under the position limit.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("WorldBlockIndex:{\"chunks\": %d, \"positions\": %d, \"maxPositions\": %d, \"hits\": %d, \"misses\": %d, \"evictions\": %d}", chunks.size(), positions, maxPositions, hits, misses, evictions);
+    }
+
+    private static List<WorldBlockIndex> indexesFor(@Nullable World world) {
+        List<WorldBlockIndex> list = new ArrayList<>();
+        synchronized (indexes) {
+            for (WorldBlockIndex index : indexes) {
+                if (world == null || index.isFor(world)) {
+                    list.add(index);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return if any scanner has used an index since the game started.
+     */
+    @ApiStatus.Internal
+    public static boolean isActive() {
+        return anyIndex;
+    }
+
+    @ApiStatus.Internal
+    public static void onChunkLoad(World world, int x, int z) {
+        if (!anyIndex) {
+            return;
+        }
+        for (WorldBlockIndex index : indexesFor(world)) {
+            index.dropChunk(ChunkPos.toLong(x, z));
+        }
+    }
+
+    @ApiStatus.Internal
+    public static void onChunkUnload(World world, int x, int z) {
+        onChunkLoad(world, x, z);
+    }
+
+    @ApiStatus.Internal
+    public static void onBlockUpdate(World world, BlockPos pos, BlockState state) {
+        if (!anyIndex) {
+            return;
+        }
+        for (WorldBlockIndex index : indexesFor(world)) {
+            index.update(pos, state);
+        }
+    }
+
+    /**
+     * drop the data of every index that isn't for the world that was just joined.
+     */
+    @ApiStatus.Internal
+    public static void onWorldChange(World world) {
+        if (!anyIndex) {
+            return;
+        }
+        for (WorldBlockIndex index : indexesFor(null)) {
+            if (!index.isFor(world)) {
+                index.invalidate();
+            }
+        }
+    }
+
+    /**
+     * clear the indexes of every scanner for the given dimension.
+     *
+     * @param dimension the dimension id, e.g. {@code minecraft:overworld}
+     */
+    public static void invalidateDimension(String dimension) {
+        for (WorldBlockIndex index : indexesFor(null)) {
+            World world = index.world.get();
+            if (world == null || world.getRegistryKey().getValue().toString().equals(dimension)) {
+                index.invalidate();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface PositionConsumer {
+        void accept(int x, int y, int z);
+
+    }
+
+    private static final class ChunkEntry {
+        final int bottomY;
+        final ShortOpenHashSet[] sections;
+        int size = 0;
+
+        ChunkEntry(int bottomY, int sectionCount) {
+            this.bottomY = bottomY;
+            this.sections = new ShortOpenHashSet[sectionCount];
+        }
+
+        void add(int section, short place) {
+            ShortOpenHashSet set = sections[section];
+            if (set == null) {
+                set = sections[section] = new ShortOpenHashSet();
+            }
+            if (set.add(place)) {
+                size++;
+            }
+        }
+
+        void forEach(ChunkPos pos, int minY, int maxY, PositionConsumer consumer) {
+            int chunkX = pos.x << 4;
+            int chunkZ = pos.z << 4;
+            for (int i = 0; i < sections.length; i++) {
+                ShortOpenHashSet section = sections[i];
+                int yOffset = bottomY + (i << 4);
+                if (section == null || yOffset + 15 < minY || yOffset > maxY) {
+                    continue;
+                }
+                for (ShortIterator it = section.iterator(); it.hasNext(); ) {
+                    int place = it.nextShort() & 0xFFFF;
+                    consumer.accept(chunkX + (place & 15), yOffset + (place >> 8), chunkZ + ((place >> 4) & 15));
+                }
+            }
+        }
+
+        void remove(int section, short place) {
+            ShortOpenHashSet set = sections[section];
+            if (set != null && set.remove(place)) {
+                size--;
+            }
+        }
+
+    }
+
+}
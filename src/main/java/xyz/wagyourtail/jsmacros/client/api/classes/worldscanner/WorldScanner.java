@@ -1,12 +1,18 @@
 package xyz.wagyourtail.jsmacros.client.api.classes.worldscanner;
 
+import it.unimi.dsi.fastutil.longs.LongComparator;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.util.collection.PackedIntegerArray;
 import net.minecraft.util.collection.PaletteStorage;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.util.shape.VoxelShape;
@@ -17,6 +23,7 @@ import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.Palette;
 import net.minecraft.world.chunk.PalettedContainer;
 import org.jetbrains.annotations.Nullable;
+import xyz.wagyourtail.SwarMatcher;
 import xyz.wagyourtail.jsmacros.client.access.IPackedIntegerArray;
 import xyz.wagyourtail.jsmacros.client.access.IPalettedContainer;
 import xyz.wagyourtail.jsmacros.client.access.IPalettedContainerData;
@@ -27,9 +34,11 @@ import xyz.wagyourtail.jsmacros.client.api.helpers.world.BlockStateHelper;
 import xyz.wagyourtail.jsmacros.core.MethodWrapper;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.IntConsumer;
@@ -58,6 +67,12 @@ public class WorldScanner {
 
     private final boolean useParallelStream;
 
+    @Nullable
+    private final CompiledBlockFilter compiledFilter;
+
+    @Nullable
+    private volatile WorldBlockIndex index;
+
     /**
      * Creates a new World scanner with for the given world. It accepts two boolean functions,
      * one for {@link BlockHelper} and the other for {@link BlockStateHelper}.
@@ -70,9 +85,88 @@ public class WorldScanner {
         this.world = world;
         this.useParallelStream = isParallelStreamAllowed(blockFilter) && isParallelStreamAllowed(stateFilter);
         this.filter = combineFilter(blockFilter, stateFilter);
+        this.compiledFilter = null;
+        cachedFilterStates = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates a new World scanner for the given world, that looks up block states in a compiled filter.
+     *
+     * @param world          the world to scan
+     * @param compiledFilter the filter for the block states
+     * @since 2.0.1
+     */
+    WorldScanner(World world, CompiledBlockFilter compiledFilter) {
+        this.world = world;
+        this.useParallelStream = true;
+        this.filter = compiledFilter::test;
+        this.compiledFilter = compiledFilter;
         cachedFilterStates = new ConcurrentHashMap<>();
     }
 
+    /**
+     * @return the compiled filter this scanner uses, or {@code null} if it wasn't built by a {@link WorldScannerBuilder}.
+     * @since 2.0.1
+     */
+    @Nullable
+    public CompiledBlockFilter getCompiledFilter() {
+        return compiledFilter;
+    }
+
+    /**
+     * Keep an index of where the matching blocks are, so scanning the same chunks again only costs as much as the results.
+     * The index is kept up to date from block updates and holds at most 1,000,000 positions.
+     * Scanners built from the same {@link WorldScannerBuilder} commands share their index.
+     *
+     * @return self for chaining.
+     * @see WorldBlockIndex
+     * @since 2.0.1
+     */
+    public WorldScanner useIndex() {
+        return useIndex(1_000_000);
+    }
+
+    /**
+     * Keep an index of where the matching blocks are, so scanning the same chunks again only costs as much as the results.
+     *
+     * @param maxPositions the most positions to keep, the least recently scanned chunks are dropped first.
+     * @return self for chaining.
+     * @see WorldBlockIndex
+     * @since 2.0.1
+     */
+    public WorldScanner useIndex(int maxPositions) {
+        WorldBlockIndex old = index;
+        index = WorldBlockIndex.acquire(this, world, maxPositions);
+        if (old != null) {
+            old.close();
+        }
+        return this;
+    }
+
+    /**
+     * Stop using the index and free it.
+     *
+     * @return self for chaining.
+     * @since 2.0.1
+     */
+    public WorldScanner disableIndex() {
+        WorldBlockIndex old = index;
+        index = null;
+        if (old != null) {
+            old.close();
+        }
+        return this;
+    }
+
+    /**
+     * @return the index this scanner answers from, or {@code null} if it scans every time.
+     * @since 2.0.1
+     */
+    @Nullable
+    public WorldBlockIndex getIndex() {
+        return index;
+    }
+
     /**
      * Gets a list of all chunks in the given range around the center chunk.
      *
@@ -329,6 +423,110 @@ public class WorldScanner {
                 .orElse(null);
     }
 
+    /**
+     * Finds the {@code k} matching blocks closest to the given position, closest first.
+     * Chunk sections are scanned in order of their distance to the position, and the scan stops as soon as
+     * no unscanned section can hold anything closer, so this only looks at the area around the closest results.
+     *
+     * @param pos       the position to search around
+     * @param k         the amount of blocks to find
+     * @param maxRadius the maximum distance to a block's center
+     * @return the closest matching block positions, closest first.
+     * @since 2.0.1
+     */
+    public List<Pos3D> scanNearest(Pos3D pos, int k, double maxRadius) {
+        return scanNearest(pos.x, pos.y, pos.z, k, maxRadius);
+    }
+
+    /**
+     * Finds the {@code k} matching blocks closest to the given position, closest first.
+     * Chunk sections are scanned in order of their distance to the position, and the scan stops as soon as
+     * no unscanned section can hold anything closer, so this only looks at the area around the closest results.
+     *
+     * @param x         the x coordinate to search around
+     * @param y         the y coordinate to search around
+     * @param z         the z coordinate to search around
+     * @param k         the amount of blocks to find
+     * @param maxRadius the maximum distance to a block's center, only loaded chunks are searched, the position itself
+     *                  doesn't have to be in one
+     * @return the closest matching block positions, closest first.
+     * @since 2.0.1
+     */
+    public List<Pos3D> scanNearest(double x, double y, double z, int k, double maxRadius) {
+        if (k < 0) throw new IllegalArgumentException("k cannot be negative!");
+        if (!(maxRadius >= 0) || Double.isInfinite(maxRadius)) throw new IllegalArgumentException("maxRadius must be a positive finite number!");
+        List<Pos3D> result = new ArrayList<>();
+        if (k == 0) return result;
+
+        double sq = maxRadius * maxRadius;
+        // block positions are compared to this, so distances are to the block's center
+        Vec3d centered = new Vec3d(x - 0.5, y - 0.5, z - 0.5);
+        int bottomSection = world.getBottomY() >> 4;
+        int topSection = (world.getTopY() - 1) >> 4;
+
+        LongComparator farthestFirst = (a, b) -> Double.compare(
+                centered.squaredDistanceTo(BlockPos.unpackLongX(b), BlockPos.unpackLongY(b), BlockPos.unpackLongZ(b)),
+                centered.squaredDistanceTo(BlockPos.unpackLongX(a), BlockPos.unpackLongY(a), BlockPos.unpackLongZ(a))
+        );
+        LongHeapPriorityQueue found = new LongHeapPriorityQueue(Math.min(k, 1024) + 1, farthestFirst);
+        double[] worst = {Double.POSITIVE_INFINITY};
+        WorldBlockIndex.PositionConsumer collector = (bx, by, bz) -> {
+            double dist = centered.squaredDistanceTo(bx, by, bz);
+            if (dist > sq || found.size() == k && dist >= worst[0]) return;
+            found.enqueue(BlockPos.asLong(bx, by, bz));
+            if (found.size() > k) found.dequeueLong();
+            if (found.size() == k) {
+                long last = found.firstLong();
+                worst[0] = centered.squaredDistanceTo(BlockPos.unpackLongX(last), BlockPos.unpackLongY(last), BlockPos.unpackLongZ(last));
+            }
+        };
+
+        // the client only has chunks around the player, the same square ClientChunkManager keeps them in.
+        // unloaded columns inside it are passed through, so holes or a position outside render distance don't end the search.
+        ChunkPos loadedCenter = mc.player != null ? mc.player.getChunkPos() : new ChunkPos(MathHelper.floor(centered.x) >> 4, MathHelper.floor(centered.z) >> 4);
+        int loadedRadius = Math.max(2, mc.options.getClampedViewDistance()) + 3;
+        int minChunkX = loadedCenter.x - loadedRadius;
+        int maxChunkX = loadedCenter.x + loadedRadius;
+        int minChunkZ = loadedCenter.z - loadedRadius;
+        int maxChunkZ = loadedCenter.z + loadedRadius;
+
+        PriorityQueue<SectionDistance> sections = new PriorityQueue<>(Comparator.comparingDouble(SectionDistance::distSq));
+        LongOpenHashSet seen = new LongOpenHashSet();
+        // the closest section that can be loaded, distances only grow moving away from it inside the square
+        int startX = MathHelper.clamp(MathHelper.floor(centered.x) >> 4, minChunkX, maxChunkX);
+        int startY = MathHelper.clamp(MathHelper.floor(centered.y) >> 4, bottomSection, topSection);
+        int startZ = MathHelper.clamp(MathHelper.floor(centered.z) >> 4, minChunkZ, maxChunkZ);
+        SectionDistance start = new SectionDistance(startX, startY, startZ, 0);
+        sections.add(start.withDistance(centered));
+        seen.add(ChunkSectionPos.asLong(start.x(), start.y(), start.z()));
+
+        SectionDistance section;
+        while ((section = sections.poll()) != null) {
+            if (section.distSq() > sq || found.size() == k && section.distSq() >= worst[0]) break;
+            forEachPosition(new ChunkPos(section.x(), section.z()), section.y() << 4, (section.y() << 4) + 15, collector);
+
+            for (Direction direction : Direction.values()) {
+                int nx = section.x() + direction.getOffsetX();
+                int ny = section.y() + direction.getOffsetY();
+                int nz = section.z() + direction.getOffsetZ();
+                if (ny < bottomSection || ny > topSection) continue;
+                if (nx < minChunkX || nx > maxChunkX || nz < minChunkZ || nz > maxChunkZ) continue;
+                if (!seen.add(ChunkSectionPos.asLong(nx, ny, nz))) continue;
+                SectionDistance next = new SectionDistance(nx, ny, nz, 0).withDistance(centered);
+                if (next.distSq() <= sq) {
+                    sections.add(next);
+                }
+            }
+        }
+
+        while (!found.isEmpty()) {
+            long packed = found.dequeueLong();
+            result.add(new Pos3D(BlockPos.unpackLongX(packed), BlockPos.unpackLongY(packed), BlockPos.unpackLongZ(packed)));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
     private double getReach() {
         return mc.player != null ? mc.player.getBlockInteractionRange() : 4.5;
     }
@@ -437,20 +635,114 @@ public class WorldScanner {
             return Stream.empty();
         }
 
-        long chunkX = (long) pos.x << 4;
-        long chunkZ = (long) pos.z << 4;
-
         List<Pos3D> blocks = new ArrayList<>();
+        forEachPosition(pos, minY, maxY, (x, y, z) -> blocks.add(new Pos3D(x, y, z)));
+        return blocks.stream();
+    }
+
+    /**
+     * pass every match in the chunk's sections between {@code minY} and {@code maxY} to {@code consumer},
+     * from the index if there is one.
+     */
+    void forEachPosition(ChunkPos pos, int minY, int maxY, WorldBlockIndex.PositionConsumer consumer) {
+        if (!world.isChunkLoaded(pos.x, pos.z)) {
+            return;
+        }
+        WorldBlockIndex index = this.index;
+        if (index != null) {
+            index.forEach(world.getChunk(pos.x, pos.z), minY, maxY, consumer);
+            return;
+        }
 
-        streamChunkSections(world.getChunk(pos.x, pos.z), minY, maxY, (section, yOffset, isInFilter) -> {
-            PackedIntegerArray array = (PackedIntegerArray) ((IPalettedContainer<?>) section.getBlockStateContainer()).jsmacros_getData().jsmacros_getStorage();
-            forEach(array, isInFilter, place -> blocks.add(new Pos3D(
-                    chunkX + ((place & 255) & 15),
-                    yOffset + (place >> 8),
-                    chunkZ + ((place & 255) >> 4)
-            )));
+        int chunkX = pos.x << 4;
+        int chunkZ = pos.z << 4;
+        forEachMatch(world.getChunk(pos.x, pos.z), minY, maxY, (yOffset, place) -> consumer.accept(
+                chunkX + ((place & 255) & 15),
+                yOffset + (place >> 8),
+                chunkZ + ((place & 255) >> 4)
+        ));
+    }
+
+    /**
+     * pass the section y offset and index inside the section of every match in the chunk's sections between {@code minY} and {@code maxY}.
+     */
+    void forEachMatch(Chunk chunk, int minY, int maxY, SectionMatchConsumer consumer) {
+        streamChunkSections(chunk, minY, maxY, (section, yOffset, isInFilter) -> {
+            PaletteStorage storage = ((IPalettedContainer<?>) section.getBlockStateContainer()).jsmacros_getData().jsmacros_getStorage();
+            forEach(storage, isInFilter, place -> consumer.accept(yOffset, place));
         });
-        return blocks.stream();
+    }
+
+    /**
+     * Lazily scans the chunks in the given range around the center chunk, one chunk section at a time.
+     * Positions are packed like {@link BlockPos#asLong()}, so no object is created per match.
+     *
+     * @param centerX    the x coordinate of the center chunk to scan around
+     * @param centerZ    the z coordinate of the center chunk to scan around
+     * @param chunkRange the range to scan around the center chunk
+     * @return an iterator over all matching block positions.
+     * @since 2.0.1
+     */
+    public BlockPosIterator iterateChunkRange(int centerX, int centerZ, int chunkRange) {
+        if (chunkRange < 0) {
+            throw new IllegalArgumentException("chunkRange must be at least 0");
+        }
+        int minX = (centerX - chunkRange) << 4;
+        int minZ = (centerZ - chunkRange) << 4;
+        int maxX = ((centerX + chunkRange) << 4) + 15;
+        int maxZ = ((centerZ + chunkRange) << 4) + 15;
+        return new BlockPosIterator(this, world, minX, world.getBottomY(), minZ, maxX, world.getTopY() - 1, maxZ);
+    }
+
+    /**
+     * Lazily scans the area, one chunk section at a time.
+     * Positions are packed like {@link BlockPos#asLong()}, so no object is created per match.
+     *
+     * @param x1 first x coordinate, inclusive
+     * @param y1 first y coordinate, inclusive
+     * @param z1 first z coordinate, inclusive
+     * @param x2 second x coordinate, inclusive
+     * @param y2 second y coordinate, inclusive
+     * @param z2 second z coordinate, inclusive
+     * @return an iterator over all matching block positions.
+     * @since 2.0.1
+     */
+    public BlockPosIterator iterateCubeArea(int x1, int y1, int z1, int x2, int y2, int z2) {
+        return new BlockPosIterator(this, world,
+                Math.min(x1, x2), Math.max(Math.min(y1, y2), world.getBottomY()), Math.min(z1, z2),
+                Math.max(x1, x2), Math.min(Math.max(y1, y2), world.getTopY() - 1), Math.max(z1, z2)
+        );
+    }
+
+    /**
+     * Same as {@link #scanChunkRange(int, int, int)}, but returns the positions packed like {@link BlockPos#asLong()}.
+     *
+     * @param centerX    the x coordinate of the center chunk to scan around
+     * @param centerZ    the z coordinate of the center chunk to scan around
+     * @param chunkRange the range to scan around the center chunk
+     * @return all matching block positions.
+     * @see BlockPosIterator#unpack(long)
+     * @since 2.0.1
+     */
+    public long[] scanChunkRangePacked(int centerX, int centerZ, int chunkRange) {
+        return iterateChunkRange(centerX, centerZ, chunkRange).toLongArray();
+    }
+
+    /**
+     * Same as {@link #scanCubeAreaInclusive(int, int, int, int, int, int)}, but returns the positions packed like {@link BlockPos#asLong()}.
+     *
+     * @param x1 first x coordinate, inclusive
+     * @param y1 first y coordinate, inclusive
+     * @param z1 first z coordinate, inclusive
+     * @param x2 second x coordinate, inclusive
+     * @param y2 second y coordinate, inclusive
+     * @param z2 second z coordinate, inclusive
+     * @return all matching block positions.
+     * @see BlockPosIterator#unpack(long)
+     * @since 2.0.1
+     */
+    public long[] scanCubeAreaPacked(int x1, int y1, int z1, int x2, int y2, int z2) {
+        return iterateCubeArea(x1, y1, z1, x2, y2, z2).toLongArray();
     }
 
     /**
@@ -501,7 +793,21 @@ public class WorldScanner {
         return result;
     }
 
+    /**
+     * @return the filter result if it's already known, without running the filter.
+     */
+    @Nullable
+    Boolean getCachedFilterResult(BlockState state) {
+        if (compiledFilter != null) {
+            return compiledFilter.test(state);
+        }
+        return filter == null ? Boolean.FALSE : cachedFilterStates.get(state);
+    }
+
     private boolean getFilterResult(BlockState state) {
+        if (compiledFilter != null) {
+            return compiledFilter.test(state);
+        }
         Boolean v;
         return (v = cachedFilterStates.get(state)) == null ? addCachedState(state) : v;
     }
@@ -539,10 +845,14 @@ public class WorldScanner {
 
     /**
      * Get the amount of cached block states. This will normally be around 200 - 400.
+     * Scanners with a compiled filter know the result for every block state.
      *
      * @return the amount of cached block states.
      */
     public int getCachedAmount() {
+        if (compiledFilter != null) {
+            return Block.STATE_IDS.size();
+        }
         return cachedFilterStates.size();
     }
 
@@ -570,11 +880,6 @@ public class WorldScanner {
             }
 
             PalettedContainer<BlockState> sectionContainer = section.getBlockStateContainer();
-            //this won't work if the PaletteStorage is of the type EmptyPaletteStorage
-            if (!(((IPalettedContainer<?>) sectionContainer).jsmacros_getData().jsmacros_getStorage() instanceof PackedIntegerArray)) {
-                continue;
-            }
-
             boolean[] isInFilter = getIncludedFilterIndices(((IPalettedContainer<BlockState>) sectionContainer).jsmacros_getData().jsmacros_getPalette());
             if (isInFilter.length == 0) {
                 continue;
@@ -592,7 +897,7 @@ public class WorldScanner {
         return true;
     }
 
-    private static Function<BlockState, Boolean> combineFilter(Function<BlockHelper, Boolean> blockFilter, Function<BlockStateHelper, Boolean> stateFilter) {
+    static Function<BlockState, Boolean> combineFilter(Function<BlockHelper, Boolean> blockFilter, Function<BlockStateHelper, Boolean> stateFilter) {
         if (blockFilter != null) {
             if (stateFilter != null) {
                 return state -> blockFilter.apply(new BlockHelper(state.getBlock())) && stateFilter.apply(new BlockStateHelper(state));
@@ -606,6 +911,29 @@ public class WorldScanner {
         }
     }
 
+    private static void forEach(PaletteStorage storage, boolean[] isInFilter, IntConsumer action) {
+        int[] matching = getMatchingIndices(isInFilter);
+        int size = storage.getSize();
+        if (matching.length == isInFilter.length) {
+            // every palette entry matches, this is also how sections of a single block state end up here
+            for (int i = 0; i < size; i++) {
+                action.accept(i);
+            }
+        } else if (storage instanceof PackedIntegerArray array) {
+            if (SwarMatcher.isWorthIt(array.getElementBits(), matching.length)) {
+                new SwarMatcher(array.getData(), array.getElementBits(), size, matching).forEach(action);
+            } else {
+                forEach(array, isInFilter, action);
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                if (isInFilter[storage.get(i)]) {
+                    action.accept(i);
+                }
+            }
+        }
+    }
+
     private static void forEach(PackedIntegerArray array, boolean[] isInFilter, IntConsumer action) {
         int counter = 0;
 
@@ -616,7 +944,7 @@ public class WorldScanner {
 
         for (long datum : array.getData()) {
             long row = datum;
-            if (row == 0) {
+            if (row == 0 && !isInFilter[0]) {
                 counter += elementsPerLong;
                 continue;
             }
@@ -639,11 +967,20 @@ public class WorldScanner {
         Palette<BlockState> palette = data.jsmacros_getPalette();
         PaletteStorage storage = data.jsmacros_getStorage();
 
-        int[] count = new int[palette.getSize()];
-
         if (palette.getSize() == 1) {
             counter.accept(palette.get(0), storage.getSize());
+            return;
+        }
+        int[] matching;
+        if (storage instanceof PackedIntegerArray array && SwarMatcher.isWorthIt(array.getElementBits(), (matching = getMatchingIndices(isInFilter)).length)) {
+            for (int idx : matching) {
+                int amount = new SwarMatcher(array.getData(), array.getElementBits(), array.getSize(), new int[]{idx}).count();
+                if (amount > 0) {
+                    counter.accept(palette.get(idx), amount);
+                }
+            }
         } else {
+            int[] count = new int[palette.getSize()];
             storage.forEach(key -> count[key]++);
             for (int idx = 0; idx < count.length; idx++) {
                 if (isInFilter[idx]) {
@@ -653,6 +990,38 @@ public class WorldScanner {
         }
     }
 
+    private static int[] getMatchingIndices(boolean[] isInFilter) {
+        int amount = 0;
+        for (boolean b : isInFilter) {
+            if (b) amount++;
+        }
+        int[] matching = new int[amount];
+        for (int i = 0, j = 0; j < amount; i++) {
+            if (isInFilter[i]) matching[j++] = i;
+        }
+        return matching;
+    }
+
+    /**
+     * a chunk section and the squared distance from the search center to the closest block center in it.
+     */
+    private record SectionDistance(int x, int y, int z, double distSq) {
+
+        SectionDistance withDistance(Vec3d center) {
+            double dx = MathHelper.clamp(center.x, x << 4, (x << 4) + 15) - center.x;
+            double dy = MathHelper.clamp(center.y, y << 4, (y << 4) + 15) - center.y;
+            double dz = MathHelper.clamp(center.z, z << 4, (z << 4) + 15) - center.z;
+            return new SectionDistance(x, y, z, dx * dx + dy * dy + dz * dz);
+        }
+
+    }
+
+    @FunctionalInterface
+    interface SectionMatchConsumer {
+        void accept(int yOffset, int place);
+
+    }
+
     @FunctionalInterface
     private interface TriConsumer<A, B, C> {
         void accept(A a, B b, C c);
@@ -1,6 +1,7 @@
 package xyz.wagyourtail.jsmacros.client.api.classes.worldscanner;
 
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.world.World;
 import org.jetbrains.annotations.Nullable;
 import xyz.wagyourtail.jsmacros.client.api.classes.worldscanner.filter.api.IAdvancedFilter;
 import xyz.wagyourtail.jsmacros.client.api.classes.worldscanner.filter.api.IFilter;
@@ -11,6 +12,7 @@ import xyz.wagyourtail.jsmacros.client.api.helpers.world.BlockHelper;
 import xyz.wagyourtail.jsmacros.client.api.helpers.world.BlockStateHelper;
 import xyz.wagyourtail.jsmacros.core.MethodWrapper;
 
+
 /**
  * The builder can be used to create a world scanner with native java functions. This is especially useful for languages like javascript that
  * don't support multithreading, which causes streams to run sequential instead of parallel.
@@ -60,6 +62,8 @@ public final class WorldScannerBuilder {
     private FilterCategory selectedCategory;
     private Operation operation;
     private String method;
+    // the commands that made up the filters, builders with the same commands share a compiled filter
+    private final StringBuilder key = new StringBuilder();
 
     public WorldScannerBuilder() {
         selectedCategory = FilterCategory.NONE;
@@ -86,10 +90,13 @@ public final class WorldScannerBuilder {
     }
 
     @SuppressWarnings("unchecked")
-    private <T> void composeFilters(@Nullable IFilter<T> filter) {
+    private <T> void composeFilters(@Nullable IFilter<T> filter, String description) {
         if (selectedCategory == null || selectedCategory == FilterCategory.NONE) {
             throw new IllegalStateException("No category for creating the new filter was specified.");
         } else {
+            key.append(operation).append(' ').append(selectedCategory).append(' ');
+            appendKey(key, method);
+            key.append(description).append(';');
             if (operation == Operation.NEW) {
                 if (selectedCategory == FilterCategory.BLOCK) {
                     blockFilter = (IAdvancedFilter<BlockHelper>) filter;
@@ -163,7 +170,7 @@ public final class WorldScannerBuilder {
 
     public WorldScannerBuilder notStateFilter() {
         createNewFilter(Operation.NOT, FilterCategory.STATE, "");
-        composeFilters(null);
+        composeFilters(null, "");
         return this;
     }
 
@@ -184,7 +191,7 @@ public final class WorldScannerBuilder {
 
     public WorldScannerBuilder notBlockFilter() {
         createNewFilter(Operation.NOT, FilterCategory.BLOCK, "");
-        composeFilters(null);
+        composeFilters(null, "");
         return this;
     }
 
@@ -223,10 +230,13 @@ public final class WorldScannerBuilder {
     }
 
     public WorldScannerBuilder is(Object[] methodArgs, Object[] filterArgs) {
+        StringBuilder description = new StringBuilder();
+        appendKey(description, methodArgs);
+        appendKey(description, filterArgs);
         if (selectedCategory == FilterCategory.STATE) {
-            composeFilters(new BlockStateFilter(method, methodArgs, filterArgs));
+            composeFilters(new BlockStateFilter(method, methodArgs, filterArgs), description.toString());
         } else if (selectedCategory == FilterCategory.BLOCK) {
-            composeFilters(new BlockFilter(method, methodArgs, filterArgs));
+            composeFilters(new BlockFilter(method, methodArgs, filterArgs), description.toString());
         } else {
             throw new IllegalStateException("Can't complete filter, because there is none.");
         }
@@ -268,17 +278,48 @@ public final class WorldScannerBuilder {
 
     @SuppressWarnings("unchecked")
     private void createStringFilter(String method, String... args) {
+        StringBuilder description = new StringBuilder();
+        appendKey(description, method);
+        appendKey(description, args);
         if (selectedCategory == FilterCategory.STATE) {
-            composeFilters(new StringifyFilter<BlockStateFilter>(method).addOption(args));
+            composeFilters(new StringifyFilter<BlockStateFilter>(method).addOption(args), description.toString());
         } else if (selectedCategory == FilterCategory.BLOCK) {
-            composeFilters(new StringifyFilter<BlockHelper>(method).addOption(args));
+            composeFilters(new StringifyFilter<BlockHelper>(method).addOption(args), description.toString());
         } else {
             throw new IllegalStateException("Can't create filter, because there is none.");
         }
     }
 
+    // every value is written with its type and length, so no two different argument lists give the same key.
+    private static void appendKey(StringBuilder sb, @Nullable Object value) {
+        if (value == null) {
+            sb.append('n');
+        } else if (value instanceof Object[] array) {
+            sb.append('[').append(array.length).append(':');
+            for (Object o : array) {
+                appendKey(sb, o);
+            }
+            sb.append(']');
+        } else {
+            String type = value.getClass().getName();
+            String str = String.valueOf(value);
+            sb.append(type.length()).append(':').append(type).append(str.length()).append(':').append(str);
+        }
+    }
+
+    /**
+     * The filters are run once for every block state when a builder with these commands is first built,
+     * after that building is cheap and the scanner only looks up states in the compiled filter.
+     *
+     * @return a scanner for the current world.
+     * @see CompiledBlockFilter
+     */
     public WorldScanner build() {
-        return new WorldScanner(MinecraftClient.getInstance().world, blockFilter, stateFilter);
+        World world = MinecraftClient.getInstance().world;
+        if (blockFilter == null && stateFilter == null) {
+            return new WorldScanner(world, null, null);
+        }
+        return new WorldScanner(world, CompiledBlockFilter.get(key.toString(), WorldScanner.combineFilter(blockFilter, stateFilter)));
     }
 
     private enum Operation {
@@ -1,5 +1,10 @@
 package xyz.wagyourtail.jsmacros.client.api.event.filterer;
 
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.state.property.Property;
+import net.minecraft.util.Identifier;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import xyz.wagyourtail.doclet.DocletReplaceParams;
@@ -19,7 +24,7 @@ import java.util.Objects;
  * @since 1.9.1
  */
 @SuppressWarnings("unused")
-public class FiltererBlockUpdate implements EventFilterer {
+public class FiltererBlockUpdate implements EventFilterer.Indexed {
     @Nullable
     public BlockPosHelper pos;
     /**
@@ -36,6 +41,8 @@ public class FiltererBlockUpdate implements EventFilterer {
     @Nullable
     @DocletReplaceReturn("BlockUpdateType | null")
     public String updateType;
+    // blockId resolved to a block, so tests compare by identity instead of building the id string.
+    private volatile ResolvedBlock resolved;
 
     @Override
     public boolean canFilter(String event) {
@@ -46,31 +53,59 @@ public class FiltererBlockUpdate implements EventFilterer {
     public boolean test(BaseEvent baseEvent) {
         if (!(baseEvent instanceof EventBlockUpdate event)) return false;
         if (updateType != null && !updateType.equals(event.updateType)) return false;
-        if (blockId != null && !blockId.equals(event.block.getId())) return false;
+        if (blockId != null && event.block.getRawBlock() != resolveBlock()) return false;
         if (pos != null) {
+            int x = event.block.getX();
+            int y = event.block.getY();
+            int z = event.block.getZ();
             if (pos2 == null) {
-                if (!pos.equals(event.block.getBlockPos())) return false;
+                if (x != pos.getX() || y != pos.getY() || z != pos.getZ()) return false;
             } else {
-                BlockPosHelper bp = event.block.getBlockPos();
                 if (
-                        !(bp.getX() >= pos.getX() && bp.getX() <= pos2.getX()) ||
-                        !(bp.getY() >= pos.getY() && bp.getY() <= pos2.getY()) ||
-                        !(bp.getZ() >= pos.getZ() && bp.getZ() <= pos2.getZ())
+                        !(x >= pos.getX() && x <= pos2.getX()) ||
+                        !(y >= pos.getY() && y <= pos2.getY()) ||
+                        !(z >= pos.getZ() && z <= pos2.getZ())
                 ) return false;
             }
         }
         if (blockState != null) {
-            Map<String, String> states = event.block.getBlockState();
+            BlockState state = event.block.getRawBlockState();
             for (var ent : blockState.entrySet()) {
-                boolean contains = states.containsKey(ent.getKey());
+                Property<?> property = state.getBlock().getStateManager().getProperty(ent.getKey());
                 if (ent.getValue() == null) {
-                    if (contains) return false;
-                } else if (!contains || !Objects.equals(states.get(ent.getKey()), ent.getValue())) return false;
+                    if (property != null) return false;
+                } else if (property == null || !ent.getValue().equals(propertyValue(state, property))) return false;
             }
         }
         return true;
     }
 
+    private static <T extends Comparable<T>> String propertyValue(BlockState state, Property<T> property) {
+        return property.name(state.get(property));
+    }
+
+    /**
+     * @return the block matching {@link #blockId}, or {@code null} if there is no block id or no such block.
+     * @since 2.0.1
+     */
+    @Override
+    @Nullable
+    public Object getIndexKey() {
+        return blockId == null ? null : resolveBlock();
+    }
+
+    @Nullable
+    private Block resolveBlock() {
+        String id = blockId;
+        ResolvedBlock r = resolved;
+        if (r == null || !Objects.equals(r.id, id)) {
+            Identifier identifier = id == null ? null : Identifier.tryParse(id);
+            r = new ResolvedBlock(id, identifier == null ? null : Registries.BLOCK.getOrEmpty(identifier).orElse(null));
+            resolved = r;
+        }
+        return r.block;
+    }
+
     public FiltererBlockUpdate setPos(int x, int y, int z) {
         return setPos(new BlockPosHelper(x, y, z));
     }
@@ -127,4 +162,7 @@ public class FiltererBlockUpdate implements EventFilterer {
         return this;
     }
 
+    private record ResolvedBlock(String id, @Nullable Block block) {
+    }
+
 }
@@ -12,7 +12,7 @@ import xyz.wagyourtail.jsmacros.core.event.EventFilterer;
  * @since 1.9.1
  */
 @SuppressWarnings("unused")
-public class FiltererRecvPacket implements EventFilterer {
+public class FiltererRecvPacket implements EventFilterer.Indexed {
     @Nullable
     @DocletReplaceReturn("PacketName | null")
     public String type;
@@ -27,6 +27,15 @@ public class FiltererRecvPacket implements EventFilterer {
         return (event instanceof EventRecvPacket e) && (type == null || e.type.equals(type));
     }
 
+    /**
+     * @since 2.0.1
+     */
+    @Override
+    @Nullable
+    public Object getIndexKey() {
+        return type;
+    }
+
     @DocletReplaceParams("type: PacketName | null")
     public FiltererRecvPacket setType(@Nullable String type) {
         this.type = type;
@@ -8,6 +8,7 @@ import xyz.wagyourtail.jsmacros.client.api.event.filterer.FiltererRecvPacket;
 import xyz.wagyourtail.jsmacros.client.api.helpers.PacketByteBufferHelper;
 import xyz.wagyourtail.jsmacros.core.event.BaseEvent;
 import xyz.wagyourtail.jsmacros.core.event.Event;
+import xyz.wagyourtail.jsmacros.core.event.IndexedEvent;
 
 /**
  * @author Etheradon
@@ -15,7 +16,7 @@ import xyz.wagyourtail.jsmacros.core.event.Event;
  */
 @Event(value = "RecvPacket", cancellable = true, filterer = FiltererRecvPacket.class)
 @SuppressWarnings("unused")
-public class EventRecvPacket extends BaseEvent {
+public class EventRecvPacket extends BaseEvent implements IndexedEvent {
     @Nullable
     public Packet<?> packet;
     @DocletReplaceReturn("PacketName")
@@ -37,6 +38,15 @@ public class EventRecvPacket extends BaseEvent {
         return new PacketByteBufferHelper(packet);
     }
 
+    /**
+     * @return the packet type, see {@link FiltererRecvPacket#getIndexKey()}.
+     * @since 2.0.1
+     */
+    @Override
+    public Object getIndexKey() {
+        return type;
+    }
+
     @Override
     public String toString() {
         return String.format("%s:{\"type\": \"%s\"}", this.getEventName(), type);
@@ -8,6 +8,7 @@ import xyz.wagyourtail.jsmacros.client.api.event.filterer.FiltererSendPacket;
 import xyz.wagyourtail.jsmacros.client.api.helpers.PacketByteBufferHelper;
 import xyz.wagyourtail.jsmacros.core.event.BaseEvent;
 import xyz.wagyourtail.jsmacros.core.event.Event;
+import xyz.wagyourtail.jsmacros.core.event.IndexedEvent;
 import xyz.wagyourtail.jsmacros.core.library.impl.FReflection;
 
 /**
@@ -16,7 +17,7 @@ import xyz.wagyourtail.jsmacros.core.library.impl.FReflection;
  */
 @Event(value = "SendPacket", cancellable = true, filterer = FiltererSendPacket.class)
 @SuppressWarnings("unused")
-public class EventSendPacket extends BaseEvent {
+public class EventSendPacket extends BaseEvent implements IndexedEvent {
 
     private static final FReflection REFLECTION = new FReflection(null);
     @Nullable
@@ -53,6 +54,15 @@ public class EventSendPacket extends BaseEvent {
         return new PacketByteBufferHelper(packet);
     }
 
+    /**
+     * @return the packet type, see {@link FiltererSendPacket#getIndexKey()}.
+     * @since 2.0.1
+     */
+    @Override
+    public Object getIndexKey() {
+        return type;
+    }
+
     @Override
     public String toString() {
         return String.format("%s:{\"type\": \"%s\"}", this.getEventName(), type);
@@ -9,13 +9,14 @@ import xyz.wagyourtail.jsmacros.client.api.event.filterer.FiltererBlockUpdate;
 import xyz.wagyourtail.jsmacros.client.api.helpers.world.BlockDataHelper;
 import xyz.wagyourtail.jsmacros.core.event.BaseEvent;
 import xyz.wagyourtail.jsmacros.core.event.Event;
+import xyz.wagyourtail.jsmacros.core.event.IndexedEvent;
 
 /**
  * @author Wagyourtail
  * @since 1.2.7
  */
 @Event(value = "BlockUpdate", oldName = "BLOCK_UPDATE", filterer = FiltererBlockUpdate.class)
-public class EventBlockUpdate extends BaseEvent {
+public class EventBlockUpdate extends BaseEvent implements IndexedEvent {
     public final BlockDataHelper block;
     @DocletReplaceReturn("BlockUpdateType")
     @DocletDeclareType(name = "BlockUpdateType", type = "'STATE' | 'ENTITY'")
@@ -26,6 +27,15 @@ public class EventBlockUpdate extends BaseEvent {
         this.updateType = updateType;
     }
 
+    /**
+     * @return the raw block, see {@link FiltererBlockUpdate#getIndexKey()}.
+     * @since 2.0.1
+     */
+    @Override
+    public Object getIndexKey() {
+        return block.getRawBlock();
+    }
+
     @Override
     public String toString() {
         return String.format("%s:{\"block\": %s}", this.getEventName(), block);
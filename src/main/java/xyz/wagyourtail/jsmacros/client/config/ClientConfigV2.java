@@ -28,6 +28,9 @@ public class ClientConfigV2 {
     @Option(translationKey = "jsmacros.disablewithscreen", group = "jsmacros.settings.general")
     public boolean disableKeyWhenScreenOpen = true;
 
+    @Option(translationKey = "jsmacros.profileroverlay", group = "jsmacros.settings.general")
+    public boolean profilerOverlay = false;
+
     @Option(translationKey = "jsmacros.theme", group = {"jsmacros.settings.editor", "jsmacros.settings.editor.color"}, getter = "getThemeData", type = @OptionType("color"))
     public Map<String, short[]> editorTheme = null;
 
@@ -29,13 +29,13 @@ public class EventRegistry extends BaseEventRegistry {
             }
             addListener(rawmacro.event, new EventListener(rawmacro, runner));
         } else {
-            addListener(EventKey.class.getAnnotation(Event.class).value(), new KeyListener(rawmacro, runner));
+            addListener(EventMeta.require(EventKey.class).name, new KeyListener(rawmacro, runner));
         }
     }
 
     @Override
     public synchronized boolean removeScriptTrigger(ScriptTrigger rawmacro) {
-        final String event = rawmacro.triggerType == ScriptTrigger.TriggerType.EVENT ? rawmacro.event : EventKey.class.getAnnotation(Event.class).value();
+        final String event = rawmacro.triggerType == ScriptTrigger.TriggerType.EVENT ? rawmacro.event : EventMeta.require(EventKey.class).name;
         for (IEventListener macro : listeners.get(event)) {
             if (macro instanceof BaseListener && ((BaseListener) macro).getRawTrigger() == rawmacro) {
                 removeListener(event, macro);
@@ -6,15 +6,20 @@ import net.minecraft.text.Text;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import xyz.wagyourtail.jsmacros.client.JsMacros;
 import xyz.wagyourtail.jsmacros.client.gui.screens.CancelScreen;
+import xyz.wagyourtail.jsmacros.core.Core;
 import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
+import xyz.wagyourtail.jsmacros.core.profiler.ContextDiagnostics;
 import xyz.wagyourtail.jsmacros.core.service.EventService;
 import xyz.wagyourtail.wagyourgui.containers.MultiElementContainer;
 import xyz.wagyourtail.wagyourgui.elements.Button;
 
 public class RunningContextContainer extends MultiElementContainer<CancelScreen> {
     private Button cancelButton;
+    private Button forceCloseButton;
     public BaseScriptContext<?> t;
     public boolean service;
+    private ContextDiagnostics.Report report;
+    private long reportTime;
 
     public RunningContextContainer(int x, int y, int width, int height, TextRenderer textRenderer, CancelScreen parent, BaseScriptContext<?> t) {
         super(x, y, width, height, textRenderer, parent);
@@ -33,12 +38,30 @@ public class RunningContextContainer extends MultiElementContainer<CancelScreen>
             }
             parent.removeContainer(this);
         }));
+        // removes the context's listeners and tracked resources too, for contexts a normal close doesn't get rid of.
+        forceCloseButton = this.addDrawableChild(new Button(x + height + 1, y + 1, height - 2, height - 2, textRenderer, 0, 0xFF000000, 0x7FFF5555, 0xFF5555, Text.literal("F"), (btn) -> {
+            BaseScriptContext<?> ctx = t;
+            if (ctx != null && !ctx.isContextClosed()) {
+                Core.getInstance().diagnostics.forceClose(ctx);
+            }
+            parent.removeContainer(this);
+        }));
     }
 
     @Override
     public void setPos(int x, int y, int width, int height) {
         super.setPos(x, y, width, height);
         cancelButton.setPos(x + 1, y + 1, height - 2, height - 2);
+        forceCloseButton.setPos(x + height + 1, y + 1, height - 2, height - 2);
+    }
+
+    private ContextDiagnostics.Report getReport() {
+        long now = System.currentTimeMillis();
+        if (report == null || now - reportTime > 1000) {
+            report = Core.getInstance().diagnostics.getReport(t);
+            reportTime = now;
+        }
+        return report;
     }
 
     @Override
@@ -46,13 +69,19 @@ public class RunningContextContainer extends MultiElementContainer<CancelScreen>
         try {
             if (t != null) {
                 if (t.isContextClosed()) {
-                    JsMacros.LOGGER.warn("Closed context {} was still in list", t.getMainThread().getName());
+                    JsMacros.LOGGER.warn("Closed context {} was still in list", t.getDisplayName());
                     parent.removeContainer(this);
                 } else if (this.visible) {
-                    drawContext.drawCenteredTextWithShadow(textRenderer, textRenderer.trimToWidth(service ? ((EventService) t.getTriggeringEvent()).serviceName : t.getMainThread().getName(), width - 105 - height), x + (width - 105 - height) / 2 + height + 4, y + 2, 0xFFFFFF);
+                    ContextDiagnostics.Report report = getReport();
+                    String stats = String.format("T%d L%d R%d ~%dK", report.getBoundThreadCount(), report.getListenerCount(), report.getResourceCount(), report.getEstimatedBytes() / 1024);
+                    int statsWidth = textRenderer.getWidth(stats);
+                    int nameWidth = width - 113 - 2 * height - statsWidth;
+                    drawContext.drawCenteredTextWithShadow(textRenderer, textRenderer.trimToWidth(service ? ((EventService) t.getTriggeringEvent()).serviceName : t.getDisplayName(), nameWidth), x + nameWidth / 2 + 2 * height + 4, y + 2, report.isSuspect() ? 0xFF5555 : 0xFFFFFF);
+                    drawContext.drawTextWithShadow(textRenderer, stats, x + width - 104 - statsWidth, y + 2, report.isSuspect() ? 0xFF5555 : 0xAAAAAA);
                     drawContext.drawCenteredTextWithShadow(textRenderer, textRenderer.trimToWidth(DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - t.startTime), 100), x + width - 50 + height, y + 2, 0xFFFFFF);
                     drawContext.fill(x + width - 101, y, x + width - 100, y + height, 0xFFFFFFFF);
                     drawContext.fill(x + height, y, x + height + 1, y + height, 0xFFFFFFFF);
+                    drawContext.fill(x + 2 * height, y, x + 2 * height + 1, y + height, 0xFFFFFFFF);
                     // border
                     drawContext.fill(x, y, x + width, y + 1, 0xFFFFFFFF);
                     drawContext.fill(x, y + height - 1, x + width, y + height, 0xFFFFFFFF);
@@ -0,0 +1,80 @@
+package xyz.wagyourtail.jsmacros.client.gui.overlays;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawContext;
+import xyz.wagyourtail.jsmacros.client.config.ClientConfigV2;
+import xyz.wagyourtail.jsmacros.core.Core;
+import xyz.wagyourtail.jsmacros.core.profiler.DispatchProfiler;
+import xyz.wagyourtail.jsmacros.core.profiler.LatencyHistogram;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * hud overlay listing the listeners that hold up the triggering thread the most, see {@link DispatchProfiler}.
+ *
+ * @since 2.0.1
+ */
+public class ProfilerHud {
+    private static final long REFRESH_MILLIS = 500;
+    private static final int MAX_LINES = 10;
+
+    private static List<String> lines = new ArrayList<>();
+    private static long lastRefresh = 0;
+
+    public static void render(DrawContext drawContext) {
+        if (!Core.getInstance().config.getOptions(ClientConfigV2.class).profilerOverlay) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastRefresh > REFRESH_MILLIS) {
+            lastRefresh = now;
+            lines = buildLines(Core.getInstance().profiler);
+        }
+        TextRenderer textRenderer = MinecraftClient.getInstance().textRenderer;
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, textRenderer.getWidth(line));
+        }
+        int y = 2;
+        drawContext.fill(0, 0, width + 4, lines.size() * (textRenderer.fontHeight + 1) + 3, 0x90000000);
+        for (String line : lines) {
+            drawContext.drawTextWithShadow(textRenderer, line, 2, y, 0xFFFFFF);
+            y += textRenderer.fontHeight + 1;
+        }
+    }
+
+    private static List<String> buildLines(DispatchProfiler profiler) {
+        List<String> lines = new ArrayList<>();
+        if (!profiler.isEnabled()) {
+            lines.add("Dispatch profiler disabled");
+            return lines;
+        }
+        lines.add("event | script | calls | trigger p99 | blocked p99 | exec mean (ms)");
+        for (DispatchProfiler.ListenerStats stats : profiler.getListeners()) {
+            if (lines.size() >= MAX_LINES) {
+                break;
+            }
+            lines.add(String.format("%s | %s | %d | %s | %s | %s",
+                    stats.event,
+                    stats.file != null ? new File(stats.file).getName() : stats.creator,
+                    stats.getInvocations(),
+                    millis(stats.trigger.getValueAtPercentile(99)),
+                    millis(stats.blocked.getValueAtPercentile(99)),
+                    millis(stats.execution)
+            ));
+        }
+        return lines;
+    }
+
+    private static String millis(LatencyHistogram histogram) {
+        return histogram.getCount() == 0 ? "-" : String.format("%.2f", histogram.getMean() / 1_000_000);
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000d);
+    }
+
+}
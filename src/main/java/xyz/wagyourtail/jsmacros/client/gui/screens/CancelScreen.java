@@ -57,7 +57,7 @@ public class CancelScreen extends BaseScreen {
             running.sort(new RTCSort());
             s.setScrollPages(running.size() * 15 / (double) (height - 20));
         } else {
-            JsMacros.LOGGER.warn("Closed context {} was still in list", t.getMainThread().getName());
+            JsMacros.LOGGER.warn("Closed context {} was still in list", t.getDisplayName());
         }
     }
 
@@ -98,7 +98,7 @@ public class CancelScreen extends BaseScreen {
             return;
         }
         this.renderBackground(drawContext, mouseX, mouseY, delta);
-        List<BaseScriptContext<?>> tl = new ArrayList<>(Core.getInstance().getContexts());
+        List<BaseScriptContext<?>> tl = Core.getInstance().getContextRegistry().snapshot();
 
         for (RunningContextContainer r : ImmutableList.copyOf(this.running)) {
             tl.remove(r.t);
@@ -134,7 +134,7 @@ public class CancelScreen extends BaseScreen {
         @Override
         public int compare(RunningContextContainer arg0, RunningContextContainer arg1) {
             try {
-                return arg0.t.getMainThread().getName().compareTo(arg1.t.getMainThread().getName());
+                return arg0.t.getDisplayName().compareTo(arg1.t.getDisplayName());
             } catch (NullPointerException e) {
                 return 0;
             }
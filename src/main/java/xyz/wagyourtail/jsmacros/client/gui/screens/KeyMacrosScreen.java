@@ -9,7 +9,7 @@ import xyz.wagyourtail.jsmacros.client.gui.containers.MacroContainer;
 import xyz.wagyourtail.jsmacros.core.Core;
 import xyz.wagyourtail.jsmacros.core.config.ScriptTrigger;
 import xyz.wagyourtail.jsmacros.core.event.BaseListener;
-import xyz.wagyourtail.jsmacros.core.event.Event;
+import xyz.wagyourtail.jsmacros.core.event.EventMeta;
 import xyz.wagyourtail.jsmacros.core.event.IEventListener;
 
 import java.util.ArrayList;
@@ -27,7 +27,7 @@ public class KeyMacrosScreen extends MacroScreen {
         super.init();
         keyScreen.setColor(0x4FFFFFFF);
 
-        Set<IEventListener> listeners = Core.getInstance().eventRegistry.getListeners().get(EventKey.class.getAnnotation(Event.class).value());
+        Set<IEventListener> listeners = Core.getInstance().eventRegistry.getListeners().get(EventMeta.require(EventKey.class).name);
         List<ScriptTrigger> macros = new ArrayList<>();
 
         if (listeners != null) {
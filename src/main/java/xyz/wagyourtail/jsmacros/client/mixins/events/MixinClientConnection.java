@@ -13,8 +13,10 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.ModifyArg;
 import org.spongepowered.asm.mixin.injection.ModifyVariable;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import xyz.wagyourtail.jsmacros.client.JsMacros;
 import xyz.wagyourtail.jsmacros.client.api.event.impl.EventRecvPacket;
 import xyz.wagyourtail.jsmacros.client.api.event.impl.EventSendPacket;
+import xyz.wagyourtail.jsmacros.client.api.helpers.PacketByteBufferHelper;
 
 /**
  * @author Etheradon
@@ -35,6 +37,11 @@ public class MixinClientConnection {
         if (!channel.isOpen()) {
             return;
         }
+        // the packet name is only looked up once there is any listener at all.
+        if (!JsMacros.core.eventRegistry.hasListeners(EventRecvPacket.class) || !JsMacros.core.eventRegistry.hasListeners(EventRecvPacket.class, PacketByteBufferHelper.getPacketName(packet))) {
+            jsmacros$eventRecvPacket = null;
+            return;
+        }
         EventRecvPacket event = new EventRecvPacket(packet);
         event.trigger();
         if (event.isCanceled() || event.packet == null) {
@@ -46,11 +53,19 @@ public class MixinClientConnection {
 
     @ModifyArg(method = "channelRead0(Lio/netty/channel/ChannelHandlerContext;Lnet/minecraft/network/packet/Packet;)V", at = @At(value = "INVOKE", target = "Lnet/minecraft/network/ClientConnection;handlePacket(Lnet/minecraft/network/packet/Packet;Lnet/minecraft/network/listener/PacketListener;)V"), index = 0)
     public Packet<?> modifyReceivedPacket(Packet<?> packet) {
+        if (jsmacros$eventRecvPacket == null) {
+            return packet;
+        }
         return jsmacros$eventRecvPacket.packet;
     }
 
     @Inject(method = "sendImmediately", at = @At("HEAD"), cancellable = true)
     private void onSendPacket(Packet<?> packet, PacketCallbacks callbacks, boolean flush, CallbackInfo ci) {
+        // the packet name is only looked up once there is any listener at all.
+        if (!JsMacros.core.eventRegistry.hasListeners(EventSendPacket.class) || !JsMacros.core.eventRegistry.hasListeners(EventSendPacket.class, PacketByteBufferHelper.getPacketName(packet))) {
+            jsmacros$eventSendPacket = null;
+            return;
+        }
         EventSendPacket event = new EventSendPacket(packet);
         event.trigger();
         if (event.isCanceled() || event.packet == null) {
@@ -62,6 +77,9 @@ public class MixinClientConnection {
 
     @ModifyVariable(method = "sendImmediately", at = @At(value = "LOAD"), ordinal = 0, argsOnly = true)
     public Packet<?> modifySendPacket(Packet<?> packet) {
+        if (jsmacros$eventSendPacket == null) {
+            return packet;
+        }
         return jsmacros$eventSendPacket.packet;
     }
 
@@ -1,5 +1,6 @@
 package xyz.wagyourtail.jsmacros.client.mixins.events;
 
+import net.minecraft.block.BlockState;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.screen.ingame.HandledScreen;
@@ -29,7 +30,9 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.ModifyArg;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
+import xyz.wagyourtail.jsmacros.client.JsMacros;
 import xyz.wagyourtail.jsmacros.client.access.BossBarConsumer;
+import xyz.wagyourtail.jsmacros.client.api.classes.worldscanner.WorldBlockIndex;
 import xyz.wagyourtail.jsmacros.client.api.event.impl.EventTitle;
 import xyz.wagyourtail.jsmacros.client.api.event.impl.inventory.EventContainerUpdate;
 import xyz.wagyourtail.jsmacros.client.api.event.impl.inventory.EventItemPickup;
@@ -130,26 +133,46 @@ public abstract class MixinClientPlayNetworkHandler extends ClientCommonNetworkH
 
     @Inject(at = @At("TAIL"), method = "onChunkData")
     public void onChunkData(ChunkDataS2CPacket packet, CallbackInfo info) {
+        WorldBlockIndex.onChunkLoad(world, packet.getChunkX(), packet.getChunkZ());
         new EventChunkLoad(packet.getChunkX(), packet.getChunkZ(), true).trigger();
     }
 
     @Inject(at = @At("TAIL"), method = "onBlockUpdate")
     public void onBlockUpdate(BlockUpdateS2CPacket packet, CallbackInfo info) {
+        WorldBlockIndex.onBlockUpdate(world, packet.getPos(), packet.getState());
+        if (!JsMacros.core.eventRegistry.hasListeners(EventBlockUpdate.class, packet.getState().getBlock())) {
+            return;
+        }
         new EventBlockUpdate(packet.getState(), world.getBlockEntity(packet.getPos()), packet.getPos(), "STATE").trigger();
     }
 
     @Inject(at = @At("TAIL"), method = "onChunkDeltaUpdate")
     public void onChunkDeltaUpdate(ChunkDeltaUpdateS2CPacket packet, CallbackInfo info) {
-        packet.visitUpdates((blockPos, blockState) -> new EventBlockUpdate(blockState, world.getBlockEntity(blockPos), new BlockPos(blockPos), "STATE").trigger());
+        if (WorldBlockIndex.isActive()) {
+            packet.visitUpdates((blockPos, blockState) -> WorldBlockIndex.onBlockUpdate(world, blockPos, blockState));
+        }
+        if (!JsMacros.core.eventRegistry.hasListeners(EventBlockUpdate.class)) {
+            return;
+        }
+        packet.visitUpdates((blockPos, blockState) -> {
+            if (JsMacros.core.eventRegistry.hasListeners(EventBlockUpdate.class, blockState.getBlock())) {
+                new EventBlockUpdate(blockState, world.getBlockEntity(blockPos), new BlockPos(blockPos), "STATE").trigger();
+            }
+        });
     }
 
     @Inject(at = @At("TAIL"), method = "onBlockEntityUpdate")
     public void onBlockEntityUpdate(BlockEntityUpdateS2CPacket packet, CallbackInfo info) {
-        new EventBlockUpdate(world.getBlockState(packet.getPos()), world.getBlockEntity(packet.getPos()), packet.getPos(), "ENTITY").trigger();
+        BlockState state = world.getBlockState(packet.getPos());
+        if (!JsMacros.core.eventRegistry.hasListeners(EventBlockUpdate.class, state.getBlock())) {
+            return;
+        }
+        new EventBlockUpdate(state, world.getBlockEntity(packet.getPos()), packet.getPos(), "ENTITY").trigger();
     }
 
     @Inject(at = @At("TAIL"), method = "onUnloadChunk")
     public void onUnloadChunk(UnloadChunkS2CPacket packet, CallbackInfo info) {
+        WorldBlockIndex.onChunkUnload(world, packet.pos().x, packet.pos().z);
         new EventChunkUnload(packet.pos().x, packet.pos().z).trigger();
     }
 
@@ -19,6 +19,7 @@ import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import xyz.wagyourtail.jsmacros.client.api.classes.worldscanner.WorldBlockIndex;
 import xyz.wagyourtail.jsmacros.client.api.event.impl.EventLaunchGame;
 import xyz.wagyourtail.jsmacros.client.api.event.impl.inventory.EventOpenContainer;
 import xyz.wagyourtail.jsmacros.client.api.event.impl.player.EventOpenScreen;
@@ -46,6 +47,7 @@ public abstract class MixinMinecraftClient {
     @Inject(at = @At("HEAD"), method = "joinWorld")
     public void onJoinWorld(ClientWorld world, DownloadingTerrainScreen.WorldEntryReason worldEntryReason, CallbackInfo ci) {
         if (world != null) {
+            WorldBlockIndex.onWorldChange(world);
             new EventDimensionChange(world.getRegistryKey().getValue().toString()).trigger();
         }
     }
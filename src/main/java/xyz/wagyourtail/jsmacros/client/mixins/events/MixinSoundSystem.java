@@ -6,12 +6,16 @@ import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import xyz.wagyourtail.jsmacros.client.JsMacros;
 import xyz.wagyourtail.jsmacros.client.api.event.impl.world.EventSound;
 
 @Mixin(SoundSystem.class)
 public class MixinSoundSystem {
     @Inject(at = @At("HEAD"), method = "play(Lnet/minecraft/client/sound/SoundInstance;)V", cancellable = true)
     public void onPlay(SoundInstance instance, CallbackInfo info) {
+        if (!JsMacros.core.eventRegistry.hasListeners(EventSound.class)) {
+            return;
+        }
         String id = null;
         try {
             id = instance.getId().toString();
@@ -15,6 +15,7 @@ import xyz.wagyourtail.jsmacros.client.api.event.impl.player.EventHeldItemChange
 import xyz.wagyourtail.jsmacros.client.api.event.impl.world.EventTick;
 import xyz.wagyourtail.jsmacros.client.api.helpers.inventory.ItemStackHelper;
 import xyz.wagyourtail.jsmacros.client.api.library.impl.FClient;
+import xyz.wagyourtail.jsmacros.core.library.impl.classes.BatchedEventListener;
 
 public class TickBasedEvents {
     private static ItemStack mainHand = ItemStack.EMPTY;
@@ -56,7 +57,10 @@ public class TickBasedEvents {
         FClient.tickSynchronizer.tick();
         serverListPinger.tick();
 
-        new EventTick().trigger();
+        if (JsMacros.core.eventRegistry.hasListeners(EventTick.class)) {
+            new EventTick().trigger();
+        }
+        BatchedEventListener.tickAll();
 
         if (++counter % 10 == 0) {
             JsMacros.core.services.tickReloadListener();
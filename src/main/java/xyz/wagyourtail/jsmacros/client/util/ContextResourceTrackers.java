@@ -0,0 +1,104 @@
+package xyz.wagyourtail.jsmacros.client.util;
+
+import com.google.common.collect.ImmutableList;
+import xyz.wagyourtail.jsmacros.client.api.classes.inventory.CommandBuilder;
+import xyz.wagyourtail.jsmacros.client.api.classes.render.Draw2D;
+import xyz.wagyourtail.jsmacros.client.api.classes.render.Draw3D;
+import xyz.wagyourtail.jsmacros.client.api.classes.render.IDraw2D;
+import xyz.wagyourtail.jsmacros.client.api.library.impl.FHud;
+import xyz.wagyourtail.jsmacros.core.language.BaseScriptContext;
+import xyz.wagyourtail.jsmacros.core.profiler.ContextDiagnostics;
+
+/**
+ * counts the hud overlays, 3d renders and commands a script context registered, for {@link ContextDiagnostics}.
+ *
+ * @since 2.0.1
+ */
+public class ContextResourceTrackers {
+
+    public static void register(ContextDiagnostics diagnostics) {
+        diagnostics.registerResourceTracker("draw2d", new ContextDiagnostics.ResourceTracker() {
+            @Override
+            public int count(BaseScriptContext<?> ctx) {
+                int count = 0;
+                for (IDraw2D<Draw2D> overlay : FHud.overlays) {
+                    if (overlay instanceof Draw2D draw && draw.getOwner() == ctx) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+
+            @Override
+            public int release(BaseScriptContext<?> ctx) {
+                int count = 0;
+                for (IDraw2D<Draw2D> overlay : ImmutableList.copyOf(FHud.overlays)) {
+                    if (overlay instanceof Draw2D draw && draw.getOwner() == ctx) {
+                        draw.unregister();
+                        count++;
+                    }
+                }
+                return count;
+            }
+
+            @Override
+            public long bytesPerResource() {
+                return 16 * 1024;
+            }
+        });
+        diagnostics.registerResourceTracker("draw3d", new ContextDiagnostics.ResourceTracker() {
+            @Override
+            public int count(BaseScriptContext<?> ctx) {
+                int count = 0;
+                for (Draw3D draw : FHud.renders) {
+                    if (draw.getOwner() == ctx) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+
+            @Override
+            public int release(BaseScriptContext<?> ctx) {
+                int count = 0;
+                for (Draw3D draw : ImmutableList.copyOf(FHud.renders)) {
+                    if (draw.getOwner() == ctx) {
+                        draw.unregister();
+                        count++;
+                    }
+                }
+                return count;
+            }
+
+            @Override
+            public long bytesPerResource() {
+                return 16 * 1024;
+            }
+        });
+        diagnostics.registerResourceTracker("commands", new ContextDiagnostics.ResourceTracker() {
+            @Override
+            public int count(BaseScriptContext<?> ctx) {
+                int count = 0;
+                for (CommandBuilder builder : CommandBuilder.getRegistered()) {
+                    if (builder.getOwner() == ctx) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+
+            @Override
+            public int release(BaseScriptContext<?> ctx) throws Exception {
+                int count = 0;
+                for (CommandBuilder builder : ImmutableList.copyOf(CommandBuilder.getRegistered())) {
+                    if (builder.getOwner() == ctx) {
+                        builder.unregister();
+                        count++;
+                    }
+                }
+                return count;
+            }
+        });
+    }
+
+}